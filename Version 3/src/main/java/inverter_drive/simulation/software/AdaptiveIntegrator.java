@@ -0,0 +1,82 @@
+package inverter_drive.simulation.software;
+
+/// Step-size control shared by the embedded adaptive methods. The last accepted step size is
+/// carried across integrate() calls so steady phases cover a macro step in one substep.
+abstract class AdaptiveIntegrator implements OdeIntegrator {
+    private static final double SAFETY = 0.9;
+    private static final double MIN_SCALE = 0.2;
+    private static final double MAX_SCALE = 5.0;
+    private static final double MIN_STEP = 1e-12;
+    protected final double relativeTolerance;
+    protected final double absoluteTolerance;
+    protected double[] yNew = new double[0];
+    protected double[] error = new double[0];
+    private double stepHint = 0.0;
+    private long stepsTaken = 0;
+    private long stepsRejected = 0;
+
+    protected AdaptiveIntegrator(double relativeTolerance, double absoluteTolerance) {
+        this.relativeTolerance = relativeTolerance;
+        this.absoluteTolerance = absoluteTolerance;
+    }
+
+    /// Order of the lower embedded solution, which sets the step-size exponent
+    protected abstract int errorOrder();
+
+    protected abstract void allocate(int n);
+
+    /// Attempts one step of size h from y; writes the solution to yNew and the local error estimate to error
+    protected abstract void attempt(OdeSystem system, double t, double[] y, double h);
+
+    @Override
+    public void integrate(OdeSystem system, double t, double[] y, double h) {
+        int n = system.dimension();
+        if (yNew.length != n) {
+            yNew = new double[n];
+            error = new double[n];
+            allocate(n);
+        }
+        double end = t + h;
+        double step = stepHint > 0 ? Math.min(stepHint, h) : h;
+        while (t < end) {
+            boolean last = step >= end - t;
+            if (last) step = end - t;
+            attempt(system, t, y, step);
+            double norm = 0.0;
+            for (int i = 0; i < n; i++) {
+                double scale = absoluteTolerance + relativeTolerance * Math.max(Math.abs(y[i]), Math.abs(yNew[i]));
+                norm = Math.max(norm, Math.abs(error[i]) / scale);
+            }
+            double factor = norm == 0.0 ? MAX_SCALE
+                    : Math.min(MAX_SCALE, Math.max(MIN_SCALE, SAFETY * Math.pow(norm, -1.0 / (errorOrder() + 1))));
+            if (norm <= 1.0 || step <= MIN_STEP) {
+                System.arraycopy(yNew, 0, y, 0, n);
+                t = last ? end : t + step;
+                stepsTaken++;
+                if (!last || factor < 1.0) {
+                    stepHint = step * factor;
+                }
+                step *= factor;
+            } else {
+                stepsRejected++;
+                step = Math.max(MIN_STEP, step * factor);
+            }
+        }
+    }
+
+    @Override
+    public long getStepsTaken() {
+        return stepsTaken;
+    }
+
+    @Override
+    public long getStepsRejected() {
+        return stepsRejected;
+    }
+
+    @Override
+    public void resetStatistics() {
+        stepsTaken = 0;
+        stepsRejected = 0;
+    }
+}
@@ -0,0 +1,45 @@
+package inverter_drive.simulation.software;
+
+import java.lang.management.ManagementFactory;
+
+/// Verifies that SimulationEngine.step() allocates nothing once warmed up, for every control mode
+/// and PWM type, with a step listener attached. Uses the HotSpot per-thread allocation counter.
+/// Run: java inverter_drive.simulation.software.AllocationCheck [steps]
+public class AllocationCheck {
+    private static final int WARMUP_STEPS = 200_000; // Enough for C2 to compile the step loop
+    private static volatile double sink; // Defeats dead-code elimination
+
+    public static void main(String[] args) {
+        int steps = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+                || !threads.isThreadAllocatedMemorySupported()) {
+            System.out.println("Per-thread allocation counting is not supported by this JVM");
+            System.exit(1);
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        boolean passed = true;
+        for (String controlMode : new String[]{"V/f", "FOC", "DTC"}) {
+            for (String pwmType : new String[]{"SPWM", "SVPWM"}) {
+                passed &= check(threads, controlMode, pwmType, steps);
+            }
+        }
+        if (!passed) System.exit(1);
+    }
+
+    private static boolean check(com.sun.management.ThreadMXBean threads, String controlMode, String pwmType, int steps) {
+        SimulationEngine engine = new SimulationEngine(1L, DriveConfig.DEFAULT);
+        engine.setControlMode(controlMode);
+        engine.setPwmType(pwmType);
+        engine.addStepListener((time, voltages, currents, speed, torque, mode, fault) -> sink += currents[0]);
+        engine.step(WARMUP_STEPS); // JIT compilation and lazily created state
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        engine.step(steps);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        boolean passed = allocated == 0;
+        System.out.printf("%-4s %-6s %d steps: %d bytes allocated (%.3f per step) %s%n", controlMode, pwmType,
+                steps, allocated, allocated / (double) steps, passed ? "PASS" : "FAIL");
+        return passed;
+    }
+}
@@ -0,0 +1,23 @@
+package inverter_drive.simulation.software;
+
+import java.util.random.RandomGenerator;
+
+/// Mirror image of another generator for antithetic variates: uniforms u become 1 - u
+/// (via complemented bits) and Gaussians g become -g
+public class AntitheticRandom implements RandomGenerator {
+    private final RandomGenerator delegate;
+
+    public AntitheticRandom(RandomGenerator delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public long nextLong() {
+        return ~delegate.nextLong();
+    }
+
+    @Override
+    public double nextGaussian() {
+        return -delegate.nextGaussian();
+    }
+}
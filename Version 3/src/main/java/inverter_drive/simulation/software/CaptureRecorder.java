@@ -0,0 +1,322 @@
+package inverter_drive.simulation.software;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/// Oscilloscope-style capture around events. Every sample goes into a fixed ring of
+/// preSamples + postSamples rows; a trigger keeps the preSamples before it, records postSamples
+/// after it, then writes the window as a standalone columnar log (capture_NNNN.ivlog, readable with
+/// ColumnarLogReader) and appends it to captures.csv. Each recorder is one run: it writes into a
+/// fresh run_NNNN subdirectory, since every run's clock starts at 0 and trigger times from
+/// different runs would collide in one index. Triggers:
+///   fault    - the fault code changes to anything but "None" (on by default)
+///   threshold - a channel crosses a level; edge is "Rising", "Falling" or "Either". With hysteresis,
+///              an edge re-arms only once the channel is back beyond level -/+ hysteresis
+///   manual   - trigger() from any thread, taken on the next sample
+/// Triggers while a capture is still recording are counted in getSuppressed(), not queued.
+public class CaptureRecorder implements TelemetryBus.SampleHandler {
+    static final String INDEX_FILE = "captures.csv";
+    static final String INDEX_HEADER = "Index,TriggerTime,Trigger,File,PreSamples,PostSamples";
+    private static final String RUN_PREFIX = "run_";
+    private static final String[] EDGES = {"Rising", "Falling", "Either"};
+
+    /// One written capture; the trigger sample is row preSamples of the file
+    public record Capture(int index, double triggerTime, String trigger, Path file, int preSamples, int postSamples) {
+    }
+
+    private final Path directory; // This run's subdirectory
+    private final StringDictionary dictionary;
+    private final int preSamples;
+    private final int postSamples;
+    private final int capacity;
+    private final double[][] ring; // [channel][slot]
+    private final int[][] codeRing;
+    private long written = 0; // Samples seen
+    private int slot = 0; // Next ring slot, written % capacity
+    private boolean faultTrigger = true;
+    private int lastFault = -1;
+    private int[] thresholdChannels = new int[0];
+    private int[] thresholdEdges = new int[0];
+    private volatile double[] thresholdLevels = new double[0]; // Replaced whole by setThresholdLevel()
+    private double[] thresholdHysteresis = new double[0];
+    private boolean[] risingArmed = new boolean[0];
+    private boolean[] fallingArmed = new boolean[0];
+    private volatile String manualRequest;
+    /// Capture in progress
+    private volatile boolean recording = false;
+    private String trigger;
+    private double triggerTime;
+    private long triggerSample;
+    private int remaining;
+    private final List<Capture> captures = Collections.synchronizedList(new ArrayList<>());
+    private volatile long suppressed = 0;
+    private int nextIndex = 1;
+
+    /// directory holds one run_NNNN subdirectory per recorder; earlier runs are left untouched
+    public CaptureRecorder(Path directory, StringDictionary dictionary, int preSamples, int postSamples) throws IOException {
+        if (preSamples < 0 || postSamples < 1) {
+            throw new IllegalArgumentException("Need preSamples >= 0 and postSamples >= 1");
+        }
+        this.directory = createRunDirectory(directory);
+        this.dictionary = dictionary;
+        this.preSamples = preSamples;
+        this.postSamples = postSamples;
+        this.capacity = preSamples + postSamples;
+        this.ring = new double[TelemetryBus.CHANNELS][capacity];
+        this.codeRing = new int[TelemetryBus.CODE_CHANNELS][capacity];
+    }
+
+    /// Creates the next free run_NNNN under directory
+    private static Path createRunDirectory(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        int run = listRuns(directory).size() + 1;
+        while (true) {
+            try {
+                return Files.createDirectory(directory.resolve(String.format(Locale.ROOT, RUN_PREFIX + "%04d", run)));
+            } catch (FileAlreadyExistsException e) {
+                run++;
+            }
+        }
+    }
+
+    /// Run subdirectories under directory, oldest first; pass one to loadIndex()
+    public static List<Path> listRuns(Path directory) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return runs;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, RUN_PREFIX + "*")) {
+            for (Path entry : entries) {
+                if (Files.isDirectory(entry)) runs.add(entry);
+            }
+        }
+        runs.sort(null);
+        return runs;
+    }
+
+    /// This run's subdirectory, holding its captures and captures.csv
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public void setFaultTrigger(boolean enabled) {
+        faultTrigger = enabled;
+    }
+
+    public int addThreshold(String channel, String edge, double level) {
+        return addThreshold(channel, edge, level, 0);
+    }
+
+    /// Call before attaching; channel is a TelemetryBus channel name. Returns the threshold's index
+    /// for setThresholdLevel()
+    public int addThreshold(String channel, String edge, double level, double hysteresis) {
+        int c = Arrays.asList(TelemetryBus.CHANNEL_NAMES).indexOf(channel);
+        int e = Arrays.asList(EDGES).indexOf(edge);
+        if (c < 0) throw new IllegalArgumentException("Unknown channel: " + channel);
+        if (e < 0) throw new IllegalArgumentException("Unknown edge: " + edge);
+        if (!(hysteresis >= 0)) throw new IllegalArgumentException("Hysteresis must not be negative");
+        int n = thresholdChannels.length;
+        thresholdChannels = Arrays.copyOf(thresholdChannels, n + 1);
+        thresholdEdges = Arrays.copyOf(thresholdEdges, n + 1);
+        thresholdLevels = Arrays.copyOf(thresholdLevels, n + 1);
+        thresholdHysteresis = Arrays.copyOf(thresholdHysteresis, n + 1);
+        risingArmed = Arrays.copyOf(risingArmed, n + 1);
+        fallingArmed = Arrays.copyOf(fallingArmed, n + 1);
+        thresholdChannels[n] = c;
+        thresholdEdges[n] = e;
+        thresholdLevels[n] = level;
+        thresholdHysteresis[n] = hysteresis;
+        return n;
+    }
+
+    /// Moves a threshold while attached, e.g. when the configured temperature limit changes
+    public synchronized void setThresholdLevel(int threshold, double level) {
+        double[] levels = thresholdLevels.clone();
+        levels[threshold] = level;
+        thresholdLevels = levels;
+    }
+
+    /// Manual trigger, e.g. from the UI thread
+    public void trigger(String label) {
+        manualRequest = label;
+    }
+
+    @Override
+    public void onSample(long sequence, double[] values, int[] codes) {
+        for (int c = 0; c < TelemetryBus.CHANNELS; c++) ring[c][slot] = values[c];
+        for (int c = 0; c < TelemetryBus.CODE_CHANNELS; c++) codeRing[c][slot] = codes[c];
+        if (++slot == capacity) slot = 0;
+        written++;
+        String fired = checkTriggers(values, codes);
+        if (fired != null) {
+            if (recording) {
+                suppressed++;
+            } else {
+                recording = true;
+                trigger = fired;
+                triggerTime = values[TelemetryBus.TIME];
+                triggerSample = written - 1;
+                remaining = postSamples;
+            }
+        }
+        if (recording && --remaining == 0) {
+            recording = false;
+            writeCapture();
+        }
+    }
+
+    private String checkTriggers(double[] values, int[] codes) {
+        String fired = null;
+        String manual = manualRequest;
+        if (manual != null) {
+            manualRequest = null;
+            fired = manual;
+        }
+        int fault = codes[TelemetryBus.FAULT];
+        if (fault != lastFault) {
+            String name = dictionary.decode(fault);
+            if (faultTrigger && lastFault >= 0 && !"None".equals(name) && fired == null) fired = "Fault " + name;
+            lastFault = fault;
+        }
+        double[] levels = thresholdLevels;
+        for (int t = 0; t < thresholdChannels.length; t++) {
+            double value = values[thresholdChannels[t]];
+            double level = levels[t];
+            boolean rising = risingArmed[t] && value >= level;
+            boolean falling = fallingArmed[t] && value <= level;
+            if (rising) risingArmed[t] = false;
+            if (falling) fallingArmed[t] = false;
+            if (value < level - thresholdHysteresis[t]) risingArmed[t] = true;
+            if (value > level + thresholdHysteresis[t]) fallingArmed[t] = true;
+            boolean crossed;
+            switch (thresholdEdges[t]) {
+                case 0:
+                    crossed = rising;
+                    break;
+                case 1:
+                    crossed = falling;
+                    break;
+                default:
+                    crossed = rising || falling;
+                    break;
+            }
+            if (crossed && fired == null) {
+                fired = TelemetryBus.CHANNEL_NAMES[thresholdChannels[t]] + (rising ? " > " : " < ")
+                        + String.format(Locale.ROOT, "%.4g", level);
+            }
+        }
+        return fired;
+    }
+
+    /// Unrolls the ring oldest first; the window may hold fewer than preSamples early in a run
+    private void writeCapture() {
+        int rows = (int) Math.min(written, capacity);
+        int pre = (int) (triggerSample - (written - rows));
+        int post = rows - pre;
+        int index = nextIndex++;
+        Path file = directory.resolve(String.format(Locale.ROOT, "capture_%04d.ivlog", index));
+        int start = (int) ((written - rows) % capacity);
+        int first = Math.min(rows, capacity - start);
+        try (ColumnarLogWriter log = new ColumnarLogWriter(file, TelemetryBus.CHANNEL_NAMES,
+                TelemetryBus.CODE_CHANNEL_NAMES, dictionary, rows)) {
+            log.append(ring, codeRing, start, first);
+            if (first < rows) log.append(ring, codeRing, 0, rows - first);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Capture capture = new Capture(index, triggerTime, trigger, file, pre, post);
+        appendIndex(capture);
+        captures.add(capture);
+    }
+
+    private void appendIndex(Capture capture) {
+        Path index = directory.resolve(INDEX_FILE);
+        try (BufferedWriter out = Files.newBufferedWriter(index, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (Files.size(index) == 0) {
+                out.write(INDEX_HEADER);
+                out.newLine();
+            }
+            out.write(String.format(Locale.ROOT, "%d,%s,%s,%s,%d,%d", capture.index(),
+                    capture.triggerTime(), capture.trigger().replace(',', ';'),
+                    capture.file().getFileName(), capture.preSamples(), capture.postSamples()));
+            out.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /// Reads a run directory's captures.csv; empty when the run has no captures yet
+    public static List<Capture> loadIndex(Path directory) throws IOException {
+        Path index = directory.resolve(INDEX_FILE);
+        List<Capture> result = new ArrayList<>();
+        if (!Files.exists(index)) return result;
+        for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+            if (line.isEmpty() || line.equals(INDEX_HEADER)) continue;
+            String[] fields = line.split(",");
+            if (fields.length != 6) throw new IOException("Malformed capture index line: " + line);
+            try {
+                result.add(new Capture(Integer.parseInt(fields[0]), Double.parseDouble(fields[1]), fields[2],
+                        directory.resolve(fields[3]), Integer.parseInt(fields[4]), Integer.parseInt(fields[5])));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed capture index line: " + line, e);
+            }
+        }
+        result.sort((a, b) -> Double.compare(a.triggerTime(), b.triggerTime()));
+        return result;
+    }
+
+    /// This run's captures in trigger-time order
+    public List<Capture> getCaptures() {
+        List<Capture> sorted;
+        synchronized (captures) {
+            sorted = new ArrayList<>(captures);
+        }
+        sorted.sort((a, b) -> Double.compare(a.triggerTime(), b.triggerTime()));
+        return sorted;
+    }
+
+    /// Captures triggered in [fromTime, toTime], found by binary search on trigger time
+    public List<Capture> findCaptures(double fromTime, double toTime) {
+        List<Capture> sorted = getCaptures();
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted.get(mid).triggerTime() < fromTime) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int end = low;
+        while (end < sorted.size() && sorted.get(end).triggerTime() <= toTime) end++;
+        return sorted.subList(low, end);
+    }
+
+    public int getPreSamples() {
+        return preSamples;
+    }
+
+    public int getPostSamples() {
+        return postSamples;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    public long getSuppressed() {
+        return suppressed;
+    }
+}
@@ -0,0 +1,23 @@
+package inverter_drive.simulation.software;
+
+/// Per-channel codec figures: raw versus encoded size and time spent encoding or decoding
+public record ChannelStats(String name, String codec, long values, long rawBytes, long encodedBytes, long nanos) {
+    public double compressionRatio() {
+        return encodedBytes > 0 ? (double) rawBytes / encodedBytes : 0.0;
+    }
+
+    /// Millions of values per second of codec time
+    public double throughput() {
+        return nanos > 0 ? values * 1e3 / nanos : 0.0;
+    }
+
+    public ChannelStats add(long values, long rawBytes, long encodedBytes, long nanos) {
+        return new ChannelStats(name, codec, this.values + values, this.rawBytes + rawBytes,
+                this.encodedBytes + encodedBytes, this.nanos + nanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-13s %-12s ratio %6.2f  %8.1f Mvalues/s", name, codec, compressionRatio(), throughput());
+    }
+}
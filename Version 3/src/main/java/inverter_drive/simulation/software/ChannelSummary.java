@@ -0,0 +1,42 @@
+package inverter_drive.simulation.software;
+
+/// Aggregate of one double channel over a set of samples. NaN samples are skipped, so count is the
+/// number of real values and an empty summary has NaN min, max and mean.
+public record ChannelSummary(String name, long count, double min, double max, double sum) {
+    public static ChannelSummary empty(String name) {
+        return new ChannelSummary(name, 0, Double.NaN, Double.NaN, 0);
+    }
+
+    public double mean() {
+        return count > 0 ? sum / count : Double.NaN;
+    }
+
+    public ChannelSummary merge(ChannelSummary other) {
+        if (other.count == 0) return this;
+        if (count == 0) return new ChannelSummary(name, other.count, other.min, other.max, other.sum);
+        return new ChannelSummary(name, count + other.count, Math.min(min, other.min), Math.max(max, other.max),
+                sum + other.sum);
+    }
+
+    /// Summary of values[from, to)
+    public static ChannelSummary of(String name, double[] values, int from, int to) {
+        long count = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            double value = values[i];
+            if (value != value) continue; // NaN
+            count++;
+            sum += value;
+            if (value < min) min = value;
+            if (value > max) max = value;
+        }
+        return count > 0 ? new ChannelSummary(name, count, min, max, sum) : empty(name);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-13s n %9d  min %12.4f  max %12.4f  mean %12.4f", name, count, min, max, mean());
+    }
+}
@@ -0,0 +1,205 @@
+package inverter_drive.simulation.software;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/// Maps a ColumnarLogWriter file back read-only. Values are read in place from the mapped segments;
+/// nothing is parsed beyond the header, schema and dictionary. Segments are mapped on first use;
+/// use one reader per thread.
+public class ColumnarLogReader implements Closeable {
+    private final FileChannel channel;
+    private final int headerBytes;
+    private final int segmentRows;
+    private final long segmentBytes;
+    private final String[] channelNames;
+    private final String[] codeChannelNames;
+    private final String[] dictionary;
+    private final long rowCount;
+    private final DoubleBuffer[][] doubleColumns; // [segment][channel]
+    private final IntBuffer[][] codeColumns;
+
+    public ColumnarLogReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        ByteBuffer fixed = ByteBuffer.allocate(ColumnarLogWriter.FIXED_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(fixed, 0);
+        fixed.flip();
+        if (fixed.remaining() < ColumnarLogWriter.FIXED_HEADER_BYTES || fixed.getLong() != ColumnarLogWriter.MAGIC) {
+            channel.close();
+            throw new IOException("Not a columnar log: " + path);
+        }
+        int version = fixed.getInt();
+        if (version != ColumnarLogWriter.VERSION) {
+            channel.close();
+            throw new IOException("Unsupported columnar log version " + version);
+        }
+        headerBytes = fixed.getInt();
+        segmentRows = fixed.getInt();
+        int doubleChannels = fixed.getInt();
+        int codeChannels = fixed.getInt();
+        fixed.getInt();
+        rowCount = fixed.getLong();
+        long dictionaryOffset = fixed.getLong();
+        segmentBytes = ColumnarLogWriter.segmentBytes(segmentRows, doubleChannels, codeChannels);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, headerBytes);
+        header.order(ByteOrder.LITTLE_ENDIAN).position(ColumnarLogWriter.FIXED_HEADER_BYTES);
+        channelNames = readStrings(header, doubleChannels);
+        codeChannelNames = readStrings(header, codeChannels);
+        if (dictionaryOffset > 0) {
+            MappedByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, dictionaryOffset,
+                    channel.size() - dictionaryOffset);
+            trailer.order(ByteOrder.LITTLE_ENDIAN);
+            dictionary = readStrings(trailer, trailer.getInt());
+        } else {
+            dictionary = new String[0]; // Writer did not close
+        }
+        int segments = (int) ((rowCount + segmentRows - 1) / segmentRows);
+        doubleColumns = new DoubleBuffer[segments][];
+        codeColumns = new IntBuffer[segments][];
+    }
+
+    private static String[] readStrings(ByteBuffer buffer, int count) {
+        String[] strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    private void mapSegment(int segment) {
+        try {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY,
+                    headerBytes + segment * segmentBytes, segmentBytes);
+            int position = ColumnarLogWriter.SEGMENT_HEADER_BYTES;
+            DoubleBuffer[] doubles = new DoubleBuffer[channelNames.length];
+            for (int c = 0; c < doubles.length; c++) {
+                doubles[c] = mapped.slice(position, segmentRows * 8).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+                position += segmentRows * 8;
+            }
+            IntBuffer[] ints = new IntBuffer[codeChannelNames.length];
+            for (int c = 0; c < ints.length; c++) {
+                ints[c] = mapped.slice(position, segmentRows * 4).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+                position += segmentRows * 4;
+            }
+            codeColumns[segment] = ints;
+            doubleColumns[segment] = doubles; // Checked last by callers
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private DoubleBuffer[] doubles(int segment) {
+        if (doubleColumns[segment] == null) mapSegment(segment);
+        return doubleColumns[segment];
+    }
+
+    private IntBuffer[] codes(int segment) {
+        if (doubleColumns[segment] == null) mapSegment(segment);
+        return codeColumns[segment];
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getSegmentRows() {
+        return segmentRows;
+    }
+
+    public String[] getChannelNames() {
+        return channelNames.clone();
+    }
+
+    public String[] getCodeChannelNames() {
+        return codeChannelNames.clone();
+    }
+
+    /// Index of a double channel by name, or -1
+    public int channelIndex(String name) {
+        for (int i = 0; i < channelNames.length; i++) {
+            if (channelNames[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /// Index of a code channel by name, or -1
+    public int codeChannelIndex(String name) {
+        for (int i = 0; i < codeChannelNames.length; i++) {
+            if (codeChannelNames[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    public double getDouble(int channel, long row) {
+        return doubles((int) (row / segmentRows))[channel].get((int) (row % segmentRows));
+    }
+
+    public int getCode(int codeChannel, long row) {
+        return codes((int) (row / segmentRows))[codeChannel].get((int) (row % segmentRows));
+    }
+
+    /// Dictionary entry for a code; "#code" when the log has no dictionary
+    public String decode(int code) {
+        return code >= 0 && code < dictionary.length ? dictionary[code] : "#" + code;
+    }
+
+    public String[] getDictionary() {
+        return dictionary.clone();
+    }
+
+    /// Copies rows [fromRow, fromRow + length) of a double channel into dest
+    public void readColumn(int channel, long fromRow, double[] dest, int offset, int length) {
+        while (length > 0) {
+            int segment = (int) (fromRow / segmentRows);
+            int row = (int) (fromRow % segmentRows);
+            int n = Math.min(length, segmentRows - row);
+            doubles(segment)[channel].get(row, dest, offset, n);
+            fromRow += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /// Copies rows [fromRow, fromRow + length) of a code channel into dest
+    public void readCodes(int codeChannel, long fromRow, int[] dest, int offset, int length) {
+        while (length > 0) {
+            int segment = (int) (fromRow / segmentRows);
+            int row = (int) (fromRow % segmentRows);
+            int n = Math.min(length, segmentRows - row);
+            codes(segment)[codeChannel].get(row, dest, offset, n);
+            fromRow += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /// File offset of a row; column counts the double channels first, then the code channels.
+    /// A column is contiguous from here to the end of its segment
+    long columnOffset(int column, long row) {
+        long offset = headerBytes + row / segmentRows * segmentBytes + ColumnarLogWriter.SEGMENT_HEADER_BYTES;
+        int rowInSegment = (int) (row % segmentRows);
+        if (column < channelNames.length) return offset + (long) column * segmentRows * 8 + rowInSegment * 8L;
+        return offset + (long) channelNames.length * segmentRows * 8
+                + (long) (column - channelNames.length) * segmentRows * 4 + rowInSegment * 4L;
+    }
+
+    FileChannel fileChannel() {
+        return channel;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,202 @@
+package inverter_drive.simulation.software;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/// Binary columnar run log written through memory-mapped segments. All values little-endian:
+///
+///   header   64 bytes: magic "IVLOG001", int version, int headerBytes, int segmentRows,
+///            int doubleChannels, int codeChannels, int 0, long rowCount, long dictionaryOffset,
+///            then the schema (per channel: short length + UTF-8 name), padded to 8 bytes
+///   segment  8-byte segment header (int rows, int 0), then segmentRows values per double channel
+///            (8 bytes each), then segmentRows codes per code channel (4 bytes each)
+///   trailer  written by close(): int entries, then per entry short length + UTF-8 string
+///
+/// Segments have a fixed size, so the reader locates any row arithmetically. rowCount in the header
+/// is kept current on every append, so a crashed run is readable up to its last sample (codes then
+/// lack their dictionary). Implements SampleHandler to run directly as a telemetry subscriber.
+public class ColumnarLogWriter implements TelemetryBus.SampleHandler, Closeable {
+    static final long MAGIC = 0x313030474F4C5649L; // "IVLOG001" read little-endian
+    static final int VERSION = 1;
+    static final int FIXED_HEADER_BYTES = 64;
+    static final int SEGMENT_HEADER_BYTES = 8;
+    static final int ROW_COUNT_OFFSET = 32;
+    static final int DICTIONARY_OFFSET = 40;
+    public static final int DEFAULT_SEGMENT_ROWS = 1 << 16;
+
+    private final FileChannel channel;
+    private final StringDictionary dictionary;
+    private final int doubleChannels;
+    private final int codeChannels;
+    private final int segmentRows;
+    private final int headerBytes;
+    private final long segmentBytes;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer segment;
+    private final DoubleBuffer[] doubleColumns;
+    private final IntBuffer[] codeColumns;
+    private int segmentIndex = -1;
+    private int row; // Row within the current segment
+    private long rowCount = 0;
+    private boolean closed = false;
+
+    /// Telemetry bus schema
+    public ColumnarLogWriter(Path path, StringDictionary dictionary) throws IOException {
+        this(path, TelemetryBus.CHANNEL_NAMES, TelemetryBus.CODE_CHANNEL_NAMES, dictionary, DEFAULT_SEGMENT_ROWS);
+    }
+
+    public ColumnarLogWriter(Path path, String[] channelNames, String[] codeChannelNames,
+                             StringDictionary dictionary, int segmentRows) throws IOException {
+        if (segmentRows < 1) throw new IllegalArgumentException("segmentRows must be positive");
+        this.dictionary = dictionary;
+        this.doubleChannels = channelNames.length;
+        this.codeChannels = codeChannelNames.length;
+        this.segmentRows = segmentRows;
+        this.doubleColumns = new DoubleBuffer[doubleChannels];
+        this.codeColumns = new IntBuffer[codeChannels];
+        int schemaBytes = 0;
+        byte[][] names = new byte[doubleChannels + codeChannels][];
+        for (int i = 0; i < names.length; i++) {
+            String name = i < doubleChannels ? channelNames[i] : codeChannelNames[i - doubleChannels];
+            names[i] = name.getBytes(StandardCharsets.UTF_8);
+            schemaBytes += 2 + names[i].length;
+        }
+        this.headerBytes = align8(FIXED_HEADER_BYTES + schemaBytes);
+        this.segmentBytes = segmentBytes(segmentRows, doubleChannels, codeChannels);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, headerBytes);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(MAGIC).putInt(VERSION).putInt(headerBytes).putInt(segmentRows)
+                .putInt(doubleChannels).putInt(codeChannels).putInt(0).putLong(0L).putLong(0L);
+        header.position(FIXED_HEADER_BYTES);
+        for (byte[] name : names) {
+            header.putShort((short) name.length).put(name);
+        }
+        row = segmentRows; // First append maps segment 0
+    }
+
+    static long segmentBytes(int segmentRows, int doubleChannels, int codeChannels) {
+        return align8(SEGMENT_HEADER_BYTES + (long) segmentRows * (8L * doubleChannels + 4L * codeChannels));
+    }
+
+    private static int align8(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    private static long align8(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    @Override
+    public void onSample(long sequence, double[] values, int[] codes) {
+        append(values, codes);
+    }
+
+    /// One row; values and codes are indexed by channel in schema order
+    public void append(double[] values, int[] codes) {
+        if (row == segmentRows) nextSegment();
+        for (int c = 0; c < doubleChannels; c++) doubleColumns[c].put(row, values[c]);
+        for (int c = 0; c < codeChannels; c++) codeColumns[c].put(row, codes[c]);
+        row++;
+        header.putLong(ROW_COUNT_OFFSET, ++rowCount);
+    }
+
+    /// Bulk form: rows [from, from + count) of column arrays indexed [channel][row]
+    public void append(double[][] values, int[][] codes, int from, int count) {
+        while (count > 0) {
+            if (row == segmentRows) nextSegment();
+            int n = Math.min(count, segmentRows - row);
+            for (int c = 0; c < doubleChannels; c++) doubleColumns[c].put(row, values[c], from, n);
+            for (int c = 0; c < codeChannels; c++) codeColumns[c].put(row, codes[c], from, n);
+            row += n;
+            rowCount += n;
+            from += n;
+            count -= n;
+        }
+        header.putLong(ROW_COUNT_OFFSET, rowCount);
+    }
+
+    private void nextSegment() {
+        if (closed) throw new IllegalStateException("Log is closed");
+        try {
+            if (segment != null) {
+                segment.putInt(0, row);
+            }
+            segmentIndex++;
+            long offset = headerBytes + segmentIndex * segmentBytes;
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, offset, segmentBytes);
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+            int position = SEGMENT_HEADER_BYTES;
+            for (int c = 0; c < doubleChannels; c++) {
+                doubleColumns[c] = slice(segment, position, segmentRows * 8).asDoubleBuffer();
+                position += segmentRows * 8;
+            }
+            for (int c = 0; c < codeChannels; c++) {
+                codeColumns[c] = slice(segment, position, segmentRows * 4).asIntBuffer();
+                position += segmentRows * 4;
+            }
+            row = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        return buffer.slice(offset, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /// Forces mapped pages to disk
+    public void flush() {
+        header.force();
+        if (segment != null) segment.force();
+    }
+
+    /// Writes the dictionary trailer after the last segment and the final row count
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        long end = headerBytes;
+        if (segment != null) {
+            segment.putInt(0, row);
+            end = headerBytes + segmentIndex * segmentBytes + SEGMENT_HEADER_BYTES
+                    + (long) segmentRows * (8L * doubleChannels + 4L * codeChannels);
+            segment.force();
+        }
+        String[] entries = dictionary != null ? dictionary.values() : new String[0];
+        int trailerBytes = 4;
+        byte[][] encoded = new byte[entries.length][];
+        for (int i = 0; i < entries.length; i++) {
+            encoded[i] = entries[i].getBytes(StandardCharsets.UTF_8);
+            trailerBytes += 2 + encoded[i].length;
+        }
+        long dictionaryOffset = align8(end);
+        ByteBuffer trailer = ByteBuffer.allocate(trailerBytes).order(ByteOrder.LITTLE_ENDIAN);
+        trailer.putInt(entries.length);
+        for (byte[] entry : encoded) trailer.putShort((short) entry.length).put(entry);
+        trailer.flip();
+        channel.truncate(dictionaryOffset);
+        long position = dictionaryOffset;
+        while (trailer.hasRemaining()) position += channel.write(trailer, position);
+        header.putLong(ROW_COUNT_OFFSET, rowCount);
+        header.putLong(DICTIONARY_OFFSET, dictionaryOffset);
+        header.force();
+        segment = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,87 @@
+package inverter_drive.simulation.software;
+
+import java.io.IOException;
+
+/// ReplayLog over a columnar log; the cursor is the row number, read in place from the mapping
+public class ColumnarReplayLog implements ReplayLog {
+    private final ColumnarLogReader reader;
+    private final StringDictionary dictionary = new StringDictionary();
+    private final int[] channels; // Log channel per bus channel, or -1
+    private final int[] codeChannels;
+    private final int[] codeMap; // Log code to dictionary code
+    private final long rowCount;
+
+    public ColumnarReplayLog(ColumnarLogReader reader) {
+        this.reader = reader;
+        this.rowCount = reader.getRowCount();
+        channels = new int[TelemetryBus.CHANNELS];
+        codeChannels = new int[TelemetryBus.CODE_CHANNELS];
+        for (int c = 0; c < channels.length; c++) channels[c] = reader.channelIndex(TelemetryBus.CHANNEL_NAMES[c]);
+        for (int c = 0; c < codeChannels.length; c++) {
+            codeChannels[c] = reader.codeChannelIndex(TelemetryBus.CODE_CHANNEL_NAMES[c]);
+        }
+        String[] entries = reader.getDictionary();
+        codeMap = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) codeMap[i] = dictionary.encode(entries[i]);
+    }
+
+    @Override
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public long start() {
+        return rowCount > 0 ? 0 : -1;
+    }
+
+    @Override
+    public long seek(double fraction) {
+        long row = (long) (Math.max(0, fraction) * rowCount);
+        return row < rowCount ? row : -1;
+    }
+
+    @Override
+    public long seekTime(double time) {
+        int timeChannel = channels[TelemetryBus.TIME];
+        if (timeChannel < 0) return start();
+        long low = 0;
+        long high = rowCount;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (reader.getDouble(timeChannel, mid) < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < rowCount ? low : -1;
+    }
+
+    @Override
+    public double fraction(long cursor) {
+        return cursor < 0 || rowCount == 0 ? 1.0 : (double) cursor / rowCount;
+    }
+
+    @Override
+    public long read(long cursor, double[] values, int[] codes) {
+        for (int c = 0; c < channels.length; c++) {
+            values[c] = channels[c] >= 0 ? reader.getDouble(channels[c], cursor) : Double.NaN;
+        }
+        for (int c = 0; c < codeChannels.length; c++) {
+            if (codeChannels[c] < 0) {
+                codes[c] = dictionary.encode("");
+                continue;
+            }
+            int code = reader.getCode(codeChannels[c], cursor);
+            /// Unclosed logs have no dictionary; their codes replay as "#code"
+            codes[c] = code < codeMap.length ? codeMap[code] : dictionary.encode(reader.decode(code));
+        }
+        return cursor + 1 < rowCount ? cursor + 1 : -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,294 @@
+package inverter_drive.simulation.software;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/// Reads a CompressedLogWriter file. Only the header and trailer are read up front; each block, or
+/// one channel of it, is fetched and decoded on request. Decode figures accumulate in getStats().
+///
+/// Time range queries binary-search the block index, which assumes Time never decreases.
+/// summarize() takes blocks inside the range from the trailer summaries and decodes only the at most
+/// two blocks the range cuts through, so its cost follows the matching blocks, not the file size.
+public class CompressedLogReader implements Closeable {
+    private final FileChannel channel;
+    private final int blockRows;
+    private final String[] channelNames;
+    private final String[] codeChannelNames;
+    private final String[] dictionary;
+    private final long[] blockOffsets;
+    private final long[] blockFirstRows;
+    private final double[] blockFirstTimes;
+    private final double[] blockLastTimes;
+    private final ChannelSummary[][] summaries; // [block][channel]; null for version 1 files
+    private double[] scratchTimes;
+    private double[] scratchValues;
+    private final long rowCount;
+    private final ChannelStats[] stats;
+
+    public CompressedLogReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        long size = channel.size();
+        if (size < 40) {
+            channel.close();
+            throw new IOException("Not a compressed log, or not closed: " + path);
+        }
+        ByteBuffer footer = read(size - 16, 16);
+        long trailerOffset = footer.getLong();
+        if (footer.getLong() != CompressedLogWriter.MAGIC) {
+            channel.close();
+            throw new IOException("Not a compressed log, or not closed: " + path);
+        }
+        ByteBuffer header = read(0, (int) Math.min(size, 1 << 16));
+        header.getLong();
+        int version = header.getInt();
+        if (version != CompressedLogWriter.VERSION && version != 1) {
+            channel.close();
+            throw new IOException("Unsupported compressed log version " + version);
+        }
+        blockRows = header.getInt();
+        channelNames = new String[header.getInt()];
+        codeChannelNames = new String[header.getInt()];
+        for (int c = 0; c < channelNames.length; c++) channelNames[c] = getString(header);
+        for (int c = 0; c < codeChannelNames.length; c++) codeChannelNames[c] = getString(header);
+        ByteBuffer trailer = read(trailerOffset, (int) (size - 16 - trailerOffset));
+        dictionary = new String[trailer.getInt()];
+        for (int i = 0; i < dictionary.length; i++) dictionary[i] = getString(trailer);
+        int blocks = trailer.getInt();
+        blockOffsets = new long[blocks + 1];
+        blockFirstRows = new long[blocks];
+        blockFirstTimes = new double[blocks];
+        blockLastTimes = new double[blocks];
+        summaries = version == 1 ? null : new ChannelSummary[blocks][channelNames.length];
+        for (int b = 0; b < blocks; b++) {
+            blockOffsets[b] = trailer.getLong();
+            blockFirstRows[b] = trailer.getLong();
+            blockFirstTimes[b] = trailer.getDouble();
+            blockLastTimes[b] = trailer.getDouble();
+            if (summaries == null) continue;
+            for (int c = 0; c < channelNames.length; c++) {
+                double min = trailer.getDouble();
+                double max = trailer.getDouble();
+                double sum = trailer.getDouble();
+                long count = trailer.getLong();
+                summaries[b][c] = new ChannelSummary(channelNames[c], count, min, max, sum);
+            }
+        }
+        blockOffsets[blocks] = trailerOffset;
+        rowCount = blocks == 0 ? 0 : blockFirstRows[blocks - 1] + blockRowCount(blocks - 1);
+        stats = new ChannelStats[channelNames.length + codeChannelNames.length];
+        for (int c = 0; c < stats.length; c++) {
+            stats[c] = c < channelNames.length
+                    ? new ChannelStats(channelNames[c], CompressedLogWriter.codecName(c), 0, 0, 0, 0)
+                    : new ChannelStats(codeChannelNames[c - channelNames.length], "run-length", 0, 0, 0, 0);
+        }
+    }
+
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) break;
+        }
+        return buffer.flip();
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int getBlockCount() {
+        return blockFirstRows.length;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getBlockRows() {
+        return blockRows;
+    }
+
+    public long getBlockFirstRow(int block) {
+        return blockFirstRows[block];
+    }
+
+    public double getBlockFirstTime(int block) {
+        return blockFirstTimes[block];
+    }
+
+    public double getBlockLastTime(int block) {
+        return blockLastTimes[block];
+    }
+
+    /// Rows in a block; only the last block can be short
+    public int blockRowCount(int block) {
+        try {
+            return read(blockOffsets[block], 4).getInt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public String[] getChannelNames() {
+        return channelNames.clone();
+    }
+
+    public String[] getCodeChannelNames() {
+        return codeChannelNames.clone();
+    }
+
+    public String decode(int code) {
+        return code >= 0 && code < dictionary.length ? dictionary[code] : "#" + code;
+    }
+
+    /// Decodes every channel of a block into values[channel] and codes[codeChannel]; returns the rows
+    public int readBlock(int block, double[][] values, int[][] codes) throws IOException {
+        ByteBuffer data = read(blockOffsets[block], (int) (blockOffsets[block + 1] - blockOffsets[block]));
+        int rows = data.getInt();
+        int[] codecs = new int[stats.length];
+        int[] lengths = new int[stats.length];
+        for (int c = 0; c < lengths.length; c++) {
+            codecs[c] = data.getInt();
+            lengths[c] = data.getInt();
+        }
+        for (int c = 0; c < lengths.length; c++) {
+            byte[] encoded = new byte[lengths[c]];
+            data.get(encoded);
+            decodeChannel(c, codecs[c], encoded, rows, c < channelNames.length ? values[c] : null,
+                    c < channelNames.length ? null : codes[c - channelNames.length]);
+        }
+        return rows;
+    }
+
+    /// Decodes one double channel of a block without touching the others; returns the rows
+    public int readChannel(int block, int channelIndex, double[] values) throws IOException {
+        ByteBuffer head = read(blockOffsets[block], 4 + 8 * stats.length);
+        int rows = head.getInt();
+        long offset = blockOffsets[block] + 4 + 8L * stats.length;
+        for (int c = 0; c < channelIndex; c++) offset += head.getInt(8 + 8 * c);
+        byte[] encoded = new byte[head.getInt(8 + 8 * channelIndex)];
+        read(offset, encoded.length).get(encoded);
+        decodeChannel(channelIndex, head.getInt(4 + 8 * channelIndex), encoded, rows, values, null);
+        return rows;
+    }
+
+    private void decodeChannel(int c, int codec, byte[] encoded, int rows, double[] values, int[] codes) {
+        long start = System.nanoTime();
+        if (codec == CompressedLogWriter.RAW) {
+            if (values != null) {
+                TelemetryCodec.decodeRaw(encoded, rows, values);
+            } else {
+                TelemetryCodec.decodeRaw(encoded, rows, codes);
+            }
+        } else if (c == 0) {
+            TelemetryCodec.decodeDeltaOfDelta(encoded, rows, values);
+        } else if (c < channelNames.length) {
+            TelemetryCodec.decodeXor(encoded, rows, values);
+        } else {
+            TelemetryCodec.decodeRunLength(encoded, rows, codes);
+        }
+        stats[c] = stats[c].add(rows, (c < channelNames.length ? 8L : 4L) * rows, encoded.length,
+                System.nanoTime() - start);
+    }
+
+    public int channelIndex(String name) {
+        for (int c = 0; c < channelNames.length; c++) {
+            if (channelNames[c].equals(name)) return c;
+        }
+        throw new IllegalArgumentException("No channel " + name);
+    }
+
+    /// Blocks holding samples with fromTime <= Time <= toTime, as {first, end}; empty when first == end
+    public int[] findBlocks(double fromTime, double toTime) {
+        int low = 0;
+        int high = blockLastTimes.length;
+        while (low < high) { // First block ending at or after fromTime
+            int mid = (low + high) >>> 1;
+            if (blockLastTimes[mid] < fromTime) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int first = low;
+        high = blockFirstTimes.length;
+        while (low < high) { // First block starting after toTime
+            int mid = (low + high) >>> 1;
+            if (blockFirstTimes[mid] <= toTime) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return new int[]{first, Math.max(first, low)};
+    }
+
+    /// Whole-block aggregate; decoded on demand for version 1 files
+    public ChannelSummary getBlockSummary(int block, int channelIndex) throws IOException {
+        if (summaries != null) return summaries[block][channelIndex];
+        ensureScratch();
+        int rows = readChannel(block, channelIndex, scratchValues);
+        return ChannelSummary.of(channelNames[channelIndex], scratchValues, 0, rows);
+    }
+
+    /// Min, max, mean and count of a channel over fromTime <= Time <= toTime
+    public ChannelSummary summarize(int channelIndex, double fromTime, double toTime) throws IOException {
+        ChannelSummary result = ChannelSummary.empty(channelNames[channelIndex]);
+        int[] range = findBlocks(fromTime, toTime);
+        for (int b = range[0]; b < range[1]; b++) {
+            if (blockFirstTimes[b] >= fromTime && blockLastTimes[b] <= toTime) {
+                result = result.merge(getBlockSummary(b, channelIndex));
+                continue;
+            }
+            ensureScratch();
+            int rows = readChannel(b, 0, scratchTimes);
+            readChannel(b, channelIndex, scratchValues);
+            int from = 0;
+            while (from < rows && scratchTimes[from] < fromTime) from++;
+            int to = from;
+            while (to < rows && scratchTimes[to] <= toTime) to++;
+            result = result.merge(ChannelSummary.of(channelNames[channelIndex], scratchValues, from, to));
+        }
+        return result;
+    }
+
+    /// One summary per interval from fromTime up to toTime, e.g. the mean speed per minute
+    public ChannelSummary[] summarize(int channelIndex, double fromTime, double toTime, double interval)
+            throws IOException {
+        if (!(interval > 0)) throw new IllegalArgumentException("Interval must be positive");
+        int buckets = (int) Math.ceil((toTime - fromTime) / interval);
+        ChannelSummary[] result = new ChannelSummary[Math.max(0, buckets)];
+        for (int i = 0; i < result.length; i++) {
+            double start = fromTime + i * interval;
+            double end = Math.min(toTime, fromTime + (i + 1) * interval);
+            // Buckets are half-open [start, end) except the last, which includes toTime
+            result[i] = summarize(channelIndex, start, i == result.length - 1 ? end : Math.nextDown(end));
+        }
+        return result;
+    }
+
+    private void ensureScratch() {
+        if (scratchTimes == null) {
+            scratchTimes = new double[blockRows];
+            scratchValues = new double[blockRows];
+        }
+    }
+
+    /// Decode figures per channel, doubles first, for the blocks read so far
+    public ChannelStats[] getStats() {
+        return stats.clone();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
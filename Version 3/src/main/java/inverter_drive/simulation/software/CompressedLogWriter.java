@@ -0,0 +1,207 @@
+package inverter_drive.simulation.software;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/// Compressed, block-structured run log for archiving long runs. Rows are staged per column and
+/// every blockRows rows the block is encoded with TelemetryCodec: delta-of-delta for Time, XOR for
+/// the other doubles, run-length for the dictionary codes. All values little-endian:
+///
+///   header   magic "IVZLOG01", int version, int blockRows, int doubleChannels, int codeChannels,
+///            then per channel: short length + UTF-8 name
+///   block    int rows, then per channel int codec (0 = the channel's codec, 1 = raw) and int
+///            encoded length, then the channel encodings. A channel falls back to raw in any block
+///            where its codec would not save space.
+///   trailer  int dictionary entries + (short length + UTF-8) each, int blocks, then per block:
+///            long offset, long firstRow, double firstTime, double lastTime, then per double channel
+///            a summary: double min, double max, double sum, long count (NaN samples not counted)
+///   footer   long trailer offset, long magic
+///
+/// The trailer index lets a reader seek to and decode any block, or any channel of a block, alone,
+/// and answer aggregate queries from the summaries without decoding. Version 1 files lack the
+/// summaries.
+public class CompressedLogWriter implements TelemetryBus.SampleHandler, Closeable {
+    static final long MAGIC = 0x3130474F4C5A5649L; // "IVZLOG01" read little-endian
+    static final int VERSION = 2;
+    static final int RAW = 1; // Block-level codec override
+    public static final int DEFAULT_BLOCK_ROWS = 1 << 14;
+
+    private final FileChannel channel;
+    private final StringDictionary dictionary;
+    private final String[] channelNames;
+    private final String[] codeChannelNames;
+    private final int blockRows;
+    private final double[][] staged;
+    private final int[][] stagedCodes;
+    private int rows = 0;
+    private long firstRow = 0;
+    private long position;
+    private final List<long[]> index = new ArrayList<>(); // offset, firstRow, firstTime bits, lastTime bits
+    private final List<ChannelSummary[]> summaries = new ArrayList<>();
+    private final ChannelStats[] stats;
+    private boolean closed = false;
+
+    public CompressedLogWriter(Path path, StringDictionary dictionary) throws IOException {
+        this(path, TelemetryBus.CHANNEL_NAMES, TelemetryBus.CODE_CHANNEL_NAMES, dictionary, DEFAULT_BLOCK_ROWS);
+    }
+
+    /// Channel 0 is the time base and gets the delta-of-delta codec
+    public CompressedLogWriter(Path path, String[] channelNames, String[] codeChannelNames,
+                               StringDictionary dictionary, int blockRows) throws IOException {
+        if (blockRows < 1) throw new IllegalArgumentException("blockRows must be positive");
+        this.dictionary = dictionary;
+        this.channelNames = channelNames.clone();
+        this.codeChannelNames = codeChannelNames.clone();
+        this.blockRows = blockRows;
+        this.staged = new double[channelNames.length][blockRows];
+        this.stagedCodes = new int[codeChannelNames.length][blockRows];
+        this.stats = new ChannelStats[channelNames.length + codeChannelNames.length];
+        for (int c = 0; c < stats.length; c++) {
+            stats[c] = c < channelNames.length
+                    ? new ChannelStats(channelNames[c], codecName(c), 0, 0, 0, 0)
+                    : new ChannelStats(codeChannelNames[c - channelNames.length], "run-length", 0, 0, 0, 0);
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(24 + schemaBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(MAGIC).putInt(VERSION).putInt(blockRows).putInt(channelNames.length).putInt(codeChannelNames.length);
+        for (String name : channelNames) putString(header, name);
+        for (String name : codeChannelNames) putString(header, name);
+        header.flip();
+        position = 0;
+        write(header);
+    }
+
+    static String codecName(int channel) {
+        return channel == 0 ? "delta-of-delta" : "xor";
+    }
+
+    private int schemaBytes() {
+        int bytes = 0;
+        for (String name : channelNames) bytes += 2 + name.getBytes(StandardCharsets.UTF_8).length;
+        for (String name : codeChannelNames) bytes += 2 + name.getBytes(StandardCharsets.UTF_8).length;
+        return bytes;
+    }
+
+    static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) position += channel.write(buffer, position);
+    }
+
+    @Override
+    public void onSample(long sequence, double[] values, int[] codes) {
+        append(values, codes);
+    }
+
+    public void append(double[] values, int[] codes) {
+        for (int c = 0; c < staged.length; c++) staged[c][rows] = values[c];
+        for (int c = 0; c < stagedCodes.length; c++) stagedCodes[c][rows] = codes[c];
+        if (++rows == blockRows) {
+            try {
+                writeBlock();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (closed) throw new IllegalStateException("Log is closed");
+        if (rows == 0) return;
+        byte[][] encoded = new byte[stats.length][];
+        int[] codecs = new int[stats.length];
+        int total = 4 + 8 * stats.length;
+        for (int c = 0; c < stats.length; c++) {
+            long start = System.nanoTime();
+            long rawBytes = (c < staged.length ? 8L : 4L) * rows;
+            if (c < staged.length) {
+                encoded[c] = c == 0 ? TelemetryCodec.deltaOfDelta(staged[c], rows) : TelemetryCodec.xor(staged[c], rows);
+                if (encoded[c].length >= rawBytes) {
+                    encoded[c] = TelemetryCodec.raw(staged[c], rows);
+                    codecs[c] = RAW;
+                }
+            } else {
+                encoded[c] = TelemetryCodec.runLength(stagedCodes[c - staged.length], rows);
+                if (encoded[c].length >= rawBytes) {
+                    encoded[c] = TelemetryCodec.raw(stagedCodes[c - staged.length], rows);
+                    codecs[c] = RAW;
+                }
+            }
+            long nanos = System.nanoTime() - start;
+            stats[c] = stats[c].add(rows, rawBytes, encoded[c].length, nanos);
+            total += encoded[c].length;
+        }
+        ByteBuffer block = ByteBuffer.allocate(total).order(ByteOrder.LITTLE_ENDIAN);
+        block.putInt(rows);
+        for (int c = 0; c < stats.length; c++) block.putInt(codecs[c]).putInt(encoded[c].length);
+        for (byte[] bytes : encoded) block.put(bytes);
+        block.flip();
+        index.add(new long[]{position, firstRow, Double.doubleToRawLongBits(staged[0][0]),
+                Double.doubleToRawLongBits(staged[0][rows - 1])});
+        ChannelSummary[] summary = new ChannelSummary[staged.length];
+        for (int c = 0; c < staged.length; c++) summary[c] = ChannelSummary.of(channelNames[c], staged[c], 0, rows);
+        summaries.add(summary);
+        write(block);
+        firstRow += rows;
+        rows = 0;
+    }
+
+    public long getRowCount() {
+        return firstRow + rows;
+    }
+
+    public int getBlockCount() {
+        return index.size();
+    }
+
+    /// Encode figures per channel, doubles first, for the blocks written so far
+    public ChannelStats[] getStats() {
+        return stats.clone();
+    }
+
+    /// Encoded bytes so far, headers included
+    public long getSize() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        writeBlock();
+        closed = true;
+        String[] entries = dictionary != null ? dictionary.values() : new String[0];
+        int dictionaryBytes = 4;
+        for (String entry : entries) dictionaryBytes += 2 + entry.getBytes(StandardCharsets.UTF_8).length;
+        ByteBuffer trailer = ByteBuffer.allocate(dictionaryBytes + 4 + (32 + 32 * staged.length) * index.size() + 16)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        long trailerOffset = position;
+        trailer.putInt(entries.length);
+        for (String entry : entries) putString(trailer, entry);
+        trailer.putInt(index.size());
+        for (int b = 0; b < index.size(); b++) {
+            long[] entry = index.get(b);
+            trailer.putLong(entry[0]).putLong(entry[1]).putLong(entry[2]).putLong(entry[3]);
+            for (ChannelSummary summary : summaries.get(b)) {
+                trailer.putDouble(summary.min()).putDouble(summary.max()).putDouble(summary.sum()).putLong(summary.count());
+            }
+        }
+        trailer.putLong(trailerOffset).putLong(MAGIC);
+        trailer.flip();
+        write(trailer);
+        channel.truncate(position);
+        channel.close();
+    }
+}
@@ -22,4 +22,9 @@ public class Config {
     public static final double OVERCURRENT_VOLTAGE_SCALE = 1.5; // Voltage scaling for overcurrent fault
     public static final double UNDERVOLTAGE_VOLTAGE_SCALE = 0.5; // Voltage scaling for undervoltage fault
     public static final double IGBT_FAILURE_DUTY_CYCLE = 0.3; // Duty cycle for IGBT failure simulation
+    public static final double FAULT_AUTO_RESET_DELAY = 2.0; // seconds of simulated time
+    public static final double CAPTURE_PRE_TRIGGER_TIME = 0.2; // seconds kept before a capture trigger
+    public static final double CAPTURE_POST_TRIGGER_TIME = 0.1; // seconds recorded after a capture trigger
+    public static final int REDUCED_LOG_WINDOW = 100; // samples per reduced-log envelope window
+    public static final boolean FULL_RATE_LOGGING = false; // every-step CSV and columnar logs; captures and the reduced log always run
 }
\ No newline at end of file
@@ -0,0 +1,368 @@
+package inverter_drive.simulation.software;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/// Memory-mapped CSV log for replay. Opening reads only the header and cuts the file into chunks of
+/// about CHUNK_BYTES that start on line boundaries, which costs one short scan per chunk, so a
+/// multi-GB file opens at once. Chunks are parsed into columns on demand, and the chunks ahead of the
+/// reader are parsed in parallel on the common pool; only a window around the reader stays cached.
+///
+/// The cursor is (chunk << 32) | row within the chunk. Columns are matched to TelemetryBus channels
+/// by header name; unknown columns are ignored, missing channels read as NaN (codes as "").
+/// Not thread-safe: call it from one thread; only the parsing runs on the pool.
+public class CsvLogReader implements ReplayLog {
+    static final int CHUNK_BYTES = 1 << 20;
+    private static final int MAX_LINE_BYTES = 1 << 16;
+    private static final long REGION_BYTES = 1L << 30;
+    /// Regions overlap by a chunk plus a line, so every chunk lies inside the region of its start
+    private static final long REGION_OVERLAP = CHUNK_BYTES + 2L * MAX_LINE_BYTES;
+    private static final int PREFETCH_CHUNKS = 8;
+    private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final FileChannel file;
+    private final long size;
+    private final MappedByteBuffer[] regions;
+    private final int[] columnChannels; // Bus double channel per CSV column, or -1
+    private final int[] columnCodes; // Bus code channel per CSV column, or -1
+    private final long[] chunkStarts; // Byte offset of each chunk's first line; the last entry is size
+    private final double[] chunkFirstTimes;
+    private final StringDictionary dictionary = new StringDictionary();
+    private final ConcurrentHashMap<Integer, CompletableFuture<Chunk>> cache = new ConcurrentHashMap<>();
+    /// Chunk being read, so rows within it skip the cache lookup
+    private Chunk current;
+    private int currentIndex = -1;
+
+    /// One parsed chunk, column-major
+    private static final class Chunk {
+        final double[][] values = new double[TelemetryBus.CHANNELS][];
+        final int[][] codes = new int[TelemetryBus.CODE_CHANNELS][];
+        int rows;
+    }
+
+    public CsvLogReader(Path path) throws IOException {
+        file = FileChannel.open(path, StandardOpenOption.READ);
+        size = file.size();
+        regions = new MappedByteBuffer[(int) Math.max(1, (size + REGION_BYTES - 1) / REGION_BYTES)];
+        long headerEnd = lineEnd(0);
+        String[] header = new String(bytes(0, (int) (headerEnd - 0)), StandardCharsets.UTF_8).trim().split(",");
+        columnChannels = new int[header.length];
+        columnCodes = new int[header.length];
+        for (int i = 0; i < header.length; i++) {
+            columnChannels[i] = Arrays.asList(TelemetryBus.CHANNEL_NAMES).indexOf(header[i].trim());
+            columnCodes[i] = Arrays.asList(TelemetryBus.CODE_CHANNEL_NAMES).indexOf(header[i].trim());
+        }
+        if (columnChannels[0] != TelemetryBus.TIME) {
+            file.close();
+            throw new IOException("Not a telemetry CSV log (no leading Time column): " + path);
+        }
+        long dataStart = Math.min(size, headerEnd + 1);
+        int chunks = (int) Math.max(1, (size - dataStart + CHUNK_BYTES - 1) / CHUNK_BYTES);
+        long[] starts = new long[chunks + 1];
+        int count = 0;
+        starts[count++] = dataStart;
+        for (int c = 1; c < chunks; c++) {
+            long start = Math.min(size, lineEnd(dataStart + (long) c * CHUNK_BYTES) + 1);
+            if (start > starts[count - 1] && start < size) starts[count++] = start;
+        }
+        starts[count] = size;
+        chunkStarts = Arrays.copyOf(starts, count + 1);
+        chunkFirstTimes = new double[count];
+        Arrays.fill(chunkFirstTimes, Double.NaN);
+    }
+
+    private MappedByteBuffer region(int index) {
+        MappedByteBuffer region = regions[index];
+        if (region == null) {
+            synchronized (regions) {
+                region = regions[index];
+                if (region == null) {
+                    long start = index * REGION_BYTES;
+                    try {
+                        region = file.map(FileChannel.MapMode.READ_ONLY, start,
+                                Math.min(size - start, REGION_BYTES + REGION_OVERLAP));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    regions[index] = region;
+                }
+            }
+        }
+        return region;
+    }
+
+    /// Offset of the newline ending the line at offset, or size
+    private long lineEnd(long offset) {
+        MappedByteBuffer region = region((int) (offset / REGION_BYTES));
+        int base = (int) (offset % REGION_BYTES);
+        int limit = Math.min(region.limit(), base + MAX_LINE_BYTES);
+        for (int i = base; i < limit; i++) {
+            if (region.get(i) == '\n') return offset + (i - base);
+        }
+        if (limit == region.limit() && offset + (limit - base) >= size) return size;
+        throw new UncheckedIOException(new IOException("Line longer than " + MAX_LINE_BYTES + " bytes at offset " + offset));
+    }
+
+    private byte[] bytes(long offset, int length) {
+        byte[] bytes = new byte[length];
+        region((int) (offset / REGION_BYTES)).get((int) (offset % REGION_BYTES), bytes);
+        return bytes;
+    }
+
+    public int getChunkCount() {
+        return chunkFirstTimes.length;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public long start() {
+        return seekChunk(0, 0);
+    }
+
+    /// By byte offset, the inverse of fraction(); rows within a chunk are taken as evenly sized
+    @Override
+    public long seek(double fraction) {
+        double offset = Math.max(0, fraction) * size;
+        if (offset >= size) return -1;
+        int chunk = Arrays.binarySearch(chunkStarts, (long) offset);
+        chunk = Math.min(getChunkCount() - 1, chunk >= 0 ? chunk : -chunk - 2);
+        if (chunk < 0) return start();
+        long start = chunkStarts[chunk];
+        double within = Math.max(0, (offset - start) / (chunkStarts[chunk + 1] - start));
+        return seekChunk(chunk, (int) (within * chunk(chunk).rows));
+    }
+
+    /// Binary search on each chunk's first time, which parses one line per probe, then within the chunk
+    @Override
+    public long seekTime(double time) {
+        int low = 0;
+        int high = getChunkCount();
+        while (low < high) { // First chunk starting at or after time
+            int mid = (low + high) >>> 1;
+            if (firstTime(mid) < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int chunk = Math.max(0, low - 1);
+        Chunk parsed = chunk(chunk);
+        double[] times = parsed.values[TelemetryBus.TIME];
+        int row = 0;
+        int rowHigh = parsed.rows;
+        while (row < rowHigh) {
+            int mid = (row + rowHigh) >>> 1;
+            if (times[mid] < time) {
+                row = mid + 1;
+            } else {
+                rowHigh = mid;
+            }
+        }
+        return seekChunk(chunk, row);
+    }
+
+    private long seekChunk(int chunk, int row) {
+        while (chunk < getChunkCount()) {
+            if (row < chunk(chunk).rows) return ((long) chunk << 32) | row;
+            chunk++;
+            row = 0;
+        }
+        return -1;
+    }
+
+    private double firstTime(int chunk) {
+        double time = chunkFirstTimes[chunk];
+        if (Double.isNaN(time)) {
+            long start = chunkStarts[chunk];
+            byte[] line = bytes(start, (int) (lineEnd(start) - start));
+            int to = 0;
+            while (to < line.length && line[to] != ',') to++;
+            time = parseDouble(line, 0, to);
+            chunkFirstTimes[chunk] = time;
+        }
+        return time;
+    }
+
+    @Override
+    public double fraction(long cursor) {
+        if (cursor < 0) return 1.0;
+        int chunk = (int) (cursor >>> 32);
+        long start = chunkStarts[chunk];
+        return (start + (double) (chunkStarts[chunk + 1] - start) * (int) cursor / chunk(chunk).rows) / size;
+    }
+
+    @Override
+    public long read(long cursor, double[] values, int[] codes) {
+        int chunk = (int) (cursor >>> 32);
+        int row = (int) cursor;
+        Chunk parsed = chunk(chunk);
+        for (int c = 0; c < TelemetryBus.CHANNELS; c++) values[c] = parsed.values[c][row];
+        for (int c = 0; c < TelemetryBus.CODE_CHANNELS; c++) codes[c] = parsed.codes[c][row];
+        if (row + 1 < parsed.rows) return cursor + 1;
+        prefetch(chunk + 1);
+        return seekChunk(chunk + 1, 0);
+    }
+
+    /// Parsed chunk, waiting for it if it is being parsed. A missing chunk (after a seek) is parsed
+    /// before the ones after it are queued, so it never shares the pool with its own prefetch
+    private Chunk chunk(int chunk) {
+        if (chunk == currentIndex) return current;
+        CompletableFuture<Chunk> future = cache.get(chunk);
+        Chunk parsed;
+        if (future != null) {
+            parsed = future.join();
+        } else {
+            parsed = cache.computeIfAbsent(chunk, key -> CompletableFuture.supplyAsync(() -> parse(key))).join();
+            prefetch(chunk);
+        }
+        current = parsed;
+        currentIndex = chunk;
+        return parsed;
+    }
+
+    /// Starts parsing chunk and the PREFETCH_CHUNKS after it in parallel, and drops chunks outside
+    /// that window except the one before it
+    private void prefetch(int chunk) {
+        for (int c = chunk; c < Math.min(getChunkCount(), chunk + 1 + PREFETCH_CHUNKS); c++) {
+            int index = c;
+            cache.computeIfAbsent(index, key -> CompletableFuture.supplyAsync(() -> parse(index)));
+        }
+        /// A cancelled parse that has not started yet never runs
+        cache.entrySet().removeIf(entry -> {
+            boolean stale = entry.getKey() < chunk - 1 || entry.getKey() > chunk + PREFETCH_CHUNKS;
+            if (stale) entry.getValue().cancel(false);
+            return stale;
+        });
+    }
+
+    private Chunk parse(int chunk) {
+        long start = chunkStarts[chunk];
+        long end = chunkStarts[chunk + 1];
+        /// One bulk copy out of the mapping; per-byte reads on the buffer are several times slower
+        byte[] data = bytes(start, (int) (end - start));
+        int position = 0;
+        int limit = data.length;
+        Chunk parsed = new Chunk();
+        int capacity = Math.max(16, (limit - position) / 64);
+        for (int c = 0; c < TelemetryBus.CHANNELS; c++) parsed.values[c] = new double[capacity];
+        for (int c = 0; c < TelemetryBus.CODE_CHANNELS; c++) parsed.codes[c] = new int[capacity];
+        int[] fieldStarts = new int[columnChannels.length + 1];
+        /// Labels repeat row after row; remember the last bytes seen per code channel
+        byte[][] lastLabel = new byte[TelemetryBus.CODE_CHANNELS][];
+        Arrays.fill(lastLabel, new byte[0]);
+        int[] lastCode = new int[TelemetryBus.CODE_CHANNELS];
+        Arrays.fill(lastCode, -1);
+        int missingCode = -1;
+        int rows = 0;
+        while (position < limit) {
+            int lineEnd = position;
+            int fields = 0;
+            fieldStarts[fields++] = position;
+            while (lineEnd < limit && data[lineEnd] != '\n') {
+                if (data[lineEnd] == ',' && fields < fieldStarts.length) fieldStarts[fields++] = lineEnd + 1;
+                lineEnd++;
+            }
+            int next = lineEnd + 1;
+            if (lineEnd > position && data[lineEnd - 1] == '\r') lineEnd--;
+            if (lineEnd == position || data[position] == 'T') { // Blank line or repeated header
+                position = next;
+                continue;
+            }
+            if (rows == capacity) {
+                capacity *= 2;
+                for (int c = 0; c < TelemetryBus.CHANNELS; c++) parsed.values[c] = Arrays.copyOf(parsed.values[c], capacity);
+                for (int c = 0; c < TelemetryBus.CODE_CHANNELS; c++) parsed.codes[c] = Arrays.copyOf(parsed.codes[c], capacity);
+            }
+            for (int c = 0; c < TelemetryBus.CHANNELS; c++) parsed.values[c][rows] = Double.NaN;
+            for (int c = 0; c < TelemetryBus.CODE_CHANNELS; c++) {
+                if (missingCode < 0) missingCode = dictionary.encode("");
+                parsed.codes[c][rows] = missingCode;
+            }
+            for (int f = 0; f < fields && f < columnChannels.length; f++) {
+                int from = fieldStarts[f];
+                int to = f + 1 < fields ? fieldStarts[f + 1] - 1 : lineEnd;
+                if (columnChannels[f] >= 0) {
+                    parsed.values[columnChannels[f]][rows] = parseDouble(data, from, to);
+                } else if (columnCodes[f] >= 0) {
+                    int channel = columnCodes[f];
+                    if (lastCode[channel] < 0
+                            || !Arrays.equals(data, from, to, lastLabel[channel], 0, lastLabel[channel].length)) {
+                        byte[] label = Arrays.copyOfRange(data, from, to);
+                        lastLabel[channel] = label;
+                        lastCode[channel] = dictionary.encode(new String(label, StandardCharsets.UTF_8));
+                    }
+                    parsed.codes[channel][rows] = lastCode[channel];
+                }
+            }
+            rows++;
+            position = next;
+        }
+        parsed.rows = rows;
+        return parsed;
+    }
+
+    /// Plain decimals of up to 15 significant digits are exact as mantissa / 10^scale, since both
+    /// are exact doubles and the division rounds correctly; anything else goes to Double.parseDouble
+    static double parseDouble(byte[] data, int from, int to) {
+        if (from >= to) return Double.NaN;
+        int i = from;
+        boolean negative = data[i] == '-';
+        if (negative || data[i] == '+') i++;
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean point = false;
+        boolean any = false;
+        for (; i < to; i++) {
+            byte b = data[i];
+            if (b >= '0' && b <= '9') {
+                any = true;
+                if (mantissa != 0 || b != '0') digits++;
+                if (digits > 15) return slowParse(data, from, to);
+                mantissa = mantissa * 10 + (b - '0');
+                if (point) scale++;
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                return slowParse(data, from, to);
+            }
+        }
+        if (!any || scale >= POW10.length) return slowParse(data, from, to);
+        double value = mantissa / POW10[scale];
+        return negative ? -value : value;
+    }
+
+    private static double slowParse(byte[] data, int from, int to) {
+        try {
+            return Double.parseDouble(new String(data, from, to - from, StandardCharsets.US_ASCII).trim());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        cache.values().forEach(future -> future.cancel(false));
+        cache.clear();
+        current = null;
+        currentIndex = -1;
+        file.close();
+    }
+}
@@ -0,0 +1,261 @@
+package inverter_drive.simulation.software;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/// Streaming CSV exporter for telemetry rows. Doubles are formatted straight into a reused byte
+/// buffer and written to a FileChannel; no String or Formatter per row. The first file a writer
+/// opens replaces any file left at the path, so each run starts with its own header and columns;
+/// within the run rows are only ever appended.
+///
+/// Output is identical to DataLogger's former String.format("%.3f" time, "%.2f" others): Formatter
+/// rounds the shortest decimal representation HALF_UP, which agrees with rounding the scaled
+/// double unless its fraction lies within a few ulps of .5, and those rare near-ties (and NaN,
+/// infinities, magnitudes past 1e13) are handed to String.format itself. The decimal separator is
+/// always '.', as with the ROOT locale.
+///
+/// Rotation (checked whenever the buffer is written out): once the file reaches maxFileBytes on
+/// disk or has been open maxFileMillis, it is renamed to name.1.csv, name.2.csv, ... and a fresh file
+/// with a header is started. With gzip the file is name.csv.gz.
+public class CsvStreamWriter implements TelemetryBus.SampleHandler, Closeable {
+    public static final String[] DEFAULT_COLUMNS = {"Time", "Va", "Vb", "Vc", "Ia", "Ib", "Ic", "Speed", "Torque",
+            "ControlMode", "Fault"};
+    private static final long[] POW10 = {1, 10, 100, 1000, 10000, 100000, 1000000};
+    private static final String[] FORMATS = {"%.0f", "%.1f", "%.2f", "%.3f", "%.4f", "%.5f", "%.6f"};
+    private static final double FAST_LIMIT = 1e13; // Scaled magnitudes below this format exactly in a long
+    private static final int FIELD_RESERVE = 400; // Longest fallback field, e.g. -1.0E308 in full
+
+    private final Path path;
+    private final StringDictionary dictionary;
+    private final String[] columns;
+    private final int[] channel; // Double channel index, or -1 for a code column
+    private final int[] codeChannel;
+    private final int[] decimals;
+    private final byte[] buffer = new byte[1 << 16];
+    private final ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+    private final byte[] digits = new byte[20];
+    private byte[][] labels = new byte[0][]; // UTF-8 bytes per dictionary code
+    private int position = 0;
+    private boolean gzip = false;
+    private long maxFileBytes = 0; // 0 disables size rotation
+    private long maxFileMillis = 0; // 0 disables time rotation
+    private FileChannel file;
+    private OutputStream gzipStream;
+    private long openedAt;
+    private int rotations = 0;
+    private long rowCount = 0;
+
+    public CsvStreamWriter(Path path, StringDictionary dictionary) {
+        this(path, dictionary, DEFAULT_COLUMNS);
+    }
+
+    /// columns are TelemetryBus channel names (CHANNEL_NAMES or CODE_CHANNEL_NAMES), in output order
+    public CsvStreamWriter(Path path, StringDictionary dictionary, String[] columns) {
+        this.path = path;
+        this.dictionary = dictionary;
+        this.columns = columns.clone();
+        this.channel = new int[columns.length];
+        this.codeChannel = new int[columns.length];
+        this.decimals = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            channel[i] = indexOf(TelemetryBus.CHANNEL_NAMES, columns[i]);
+            codeChannel[i] = indexOf(TelemetryBus.CODE_CHANNEL_NAMES, columns[i]);
+            if (channel[i] < 0 && codeChannel[i] < 0) {
+                throw new IllegalArgumentException("Unknown column: " + columns[i]);
+            }
+            decimals[i] = channel[i] == TelemetryBus.TIME ? 3 : 2;
+        }
+    }
+
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /// Applies from the next file opened
+    public CsvStreamWriter setGzip(boolean gzip) {
+        this.gzip = gzip;
+        return this;
+    }
+
+    public CsvStreamWriter setRotation(long maxFileBytes, long maxFileMillis) {
+        this.maxFileBytes = maxFileBytes;
+        this.maxFileMillis = maxFileMillis;
+        return this;
+    }
+
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public void onSample(long sequence, double[] values, int[] codes) {
+        for (int i = 0; i < columns.length; i++) {
+            if (buffer.length - position < FIELD_RESERVE) drain();
+            if (i > 0) buffer[position++] = ',';
+            if (channel[i] >= 0) {
+                appendFixed(values[channel[i]], decimals[i]);
+            } else {
+                appendLabel(codes[codeChannel[i]]);
+            }
+        }
+        buffer[position++] = '\n';
+        rowCount++;
+    }
+
+    private void appendLabel(int code) {
+        if (code >= labels.length || labels[code] == null) {
+            byte[][] grown = new byte[Math.max(labels.length, dictionary.size())][];
+            System.arraycopy(labels, 0, grown, 0, labels.length);
+            grown[code] = dictionary.decode(code).getBytes(StandardCharsets.UTF_8);
+            labels = grown;
+        }
+        byte[] label = labels[code];
+        if (buffer.length - position < label.length) drain();
+        if (label.length > buffer.length) {
+            throw new IllegalArgumentException("Label longer than the write buffer");
+        }
+        System.arraycopy(label, 0, buffer, position, label.length);
+        position += label.length;
+    }
+
+    /// Same text as String.format("%." + decimals + "f", value)
+    void appendFixed(double value, int decimals) {
+        double scaled = Math.abs(value) * POW10[decimals];
+        if (scaled < FAST_LIMIT) {
+            double floor = Math.floor(scaled);
+            double fraction = scaled - floor;
+            if (Math.abs(fraction - 0.5) > 4 * Math.ulp(scaled)) {
+                long units = (long) floor + (fraction > 0.5 ? 1 : 0);
+                if (Double.doubleToRawLongBits(value) < 0) buffer[position++] = '-'; // Formatter keeps -0.00
+                appendDigits(units / POW10[decimals], 0);
+                if (decimals > 0) {
+                    buffer[position++] = '.';
+                    appendDigits(units % POW10[decimals], decimals);
+                }
+                return;
+            }
+        }
+        /// NaN lands here too: its comparisons are false
+        String text = String.format(Locale.ROOT, FORMATS[decimals], value);
+        for (int i = 0; i < text.length(); i++) buffer[position++] = (byte) text.charAt(i);
+    }
+
+    private void appendDigits(long number, int minDigits) {
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + number % 10);
+            number /= 10;
+        } while (number > 0);
+        while (count < minDigits) digits[count++] = '0';
+        while (count > 0) buffer[position++] = digits[--count];
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getRotations() {
+        return rotations;
+    }
+
+    /// Writes buffered rows out; rows are only guaranteed on disk after flush() or close()
+    public void flush() {
+        drain();
+        try {
+            if (gzipStream != null) gzipStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void drain() {
+        try {
+            if (file == null) open();
+            if (gzipStream != null) {
+                gzipStream.write(buffer, 0, position);
+            } else {
+                wrapped.clear().limit(position);
+                while (wrapped.hasRemaining()) file.write(wrapped);
+            }
+            position = 0;
+            if ((maxFileBytes > 0 && file.size() >= maxFileBytes)
+                    || (maxFileMillis > 0 && System.currentTimeMillis() - openedAt >= maxFileMillis)) {
+                rotate();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path activePath() {
+        return gzip ? path.resolveSibling(path.getFileName() + ".gz") : path;
+    }
+
+    private void open() throws IOException {
+        Path active = activePath();
+        file = FileChannel.open(active, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        openedAt = System.currentTimeMillis();
+        if (gzip) {
+            gzipStream = new GZIPOutputStream(Channels.newOutputStream(file), 1 << 16, true);
+        }
+        byte[] header = (String.join(",", columns) + "\n").getBytes(StandardCharsets.UTF_8);
+        if (gzipStream != null) {
+            gzipStream.write(header);
+        } else {
+            ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+            while (headerBuffer.hasRemaining()) file.write(headerBuffer);
+        }
+    }
+
+    private void closeFile() throws IOException {
+        if (gzipStream != null) {
+            gzipStream.close(); // Finishes the member and closes the channel
+            gzipStream = null;
+        } else if (file != null) {
+            file.close();
+        }
+        file = null;
+    }
+
+    private void rotate() throws IOException {
+        Path active = activePath();
+        closeFile();
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String stem = dot > 0 ? name.substring(0, dot) : name;
+        String extension = (dot > 0 ? name.substring(dot) : "") + (gzip ? ".gz" : "");
+        Path target;
+        do {
+            target = path.resolveSibling(stem + "." + (++rotations) + extension);
+        } while (Files.exists(target));
+        Files.move(active, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (position > 0 || file == null) {
+            try {
+                drain();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        closeFile();
+    }
+}
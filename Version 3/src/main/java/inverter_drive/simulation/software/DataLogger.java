@@ -1,45 +1,225 @@
 package inverter_drive.simulation.software;
 import javafx.application.Platform;
 import javafx.scene.control.Alert;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+/// Run logging. attach() writes CSV from a telemetry subscription through CsvStreamWriter (each
+/// logger starts the file afresh); logData() is the direct path for callers without a bus.
+/// Use one of the two per logger.
 public class DataLogger {
-    private final Queue<String> logBuffer;
-    private final int maxBufferSize = 1000;
+    private final Path csvPath;
+    private final String[] csvColumns;
+    private final List<TelemetryBus.Subscription> subscriptions = new ArrayList<>();
+    private CsvStreamWriter csv;
+    private ColumnarLogWriter columnarLog;
+    private Path columnarPath;
+    private CompressedLogWriter compressedLog;
+    private ReducedLogWriter reducedLog;
+    private CaptureRecorder captureRecorder;
+    private volatile boolean captureFailed = false;
+    private final double[] row = new double[TelemetryBus.CHANNELS];
+    private final int[] rowCodes = new int[TelemetryBus.CODE_CHANNELS];
+    private volatile boolean csvFailed = false;
 
     public DataLogger() {
-        logBuffer = new LinkedList<>();
-        logBuffer.add("Time,Va,Vb,Vc,Ia,Ib,Ic,Speed,Torque,ControlMode,Fault\n");
+        this(Path.of("simulation_data.csv"), CsvStreamWriter.DEFAULT_COLUMNS);
     }
 
+    /// columns are TelemetryBus channel names, in output order
+    public DataLogger(Path csvPath, String[] csvColumns) {
+        this.csvPath = csvPath;
+        this.csvColumns = csvColumns.clone();
+        Arrays.fill(row, Double.NaN);
+    }
+
+    /// Logs from a "Block" subscription on its own thread, keeping formatting and disk I/O off the step
+    public TelemetryBus.Subscription attach(TelemetryBus bus) {
+        csv = new CsvStreamWriter(csvPath, bus.getDictionary(), csvColumns);
+        TelemetryBus.Subscription subscription = bus.subscribe("logger", "Block");
+        subscription.start(this::writeCsv);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /// Records every sample to a binary columnar log from its own "Block" subscription
+    public TelemetryBus.Subscription attachColumnar(TelemetryBus bus, Path path) throws IOException {
+        columnarLog = new ColumnarLogWriter(path, bus.getDictionary());
+        columnarPath = path;
+        TelemetryBus.Subscription subscription = bus.subscribe("columnar-log", "Block");
+        startDetaching(subscription, columnarLog, "Failed to write columnar log");
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /// The columnar log as a NumPy .npz bundle; call after close() so the log has its dictionary
+    public void exportNpz(Path npzPath) throws IOException {
+        if (columnarPath == null) throw new IllegalStateException("No columnar log attached");
+        try (ColumnarLogReader reader = new ColumnarLogReader(columnarPath)) {
+            NpyExporter.exportNpz(reader, npzPath);
+        }
+    }
+
+    /// Archives every sample to a compressed block log from its own "Block" subscription
+    public TelemetryBus.Subscription attachCompressed(TelemetryBus bus, Path path) throws IOException {
+        compressedLog = new CompressedLogWriter(path, bus.getDictionary());
+        TelemetryBus.Subscription subscription = bus.subscribe("compressed-log", "Block");
+        startDetaching(subscription, compressedLog, "Failed to write compressed log");
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /// Stores each channel through its ReducerSpec, e.g. ReducerSpec.envelopeDefaults(), from its own
+    /// "Block" subscription
+    public TelemetryBus.Subscription attachReduced(TelemetryBus bus, Path path, ReducerSpec[] specs) throws IOException {
+        reducedLog = new ReducedLogWriter(path, specs, bus.getDictionary());
+        TelemetryBus.Subscription subscription = bus.subscribe("reduced-log", "Block");
+        startDetaching(subscription, reducedLog, "Failed to write reduced log");
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /// Records pre/post-trigger captures into directory from its own "Block" subscription, on fault
+    /// onsets only; use the CaptureRecorder overload to add thresholds
+    public TelemetryBus.Subscription attachCapture(TelemetryBus bus, Path directory, int preSamples, int postSamples) throws IOException {
+        return attachCapture(bus, new CaptureRecorder(directory, bus.getDictionary(), preSamples, postSamples));
+    }
+
+    /// Attaches a recorder whose thresholds are already registered; recorder must use bus's dictionary
+    public TelemetryBus.Subscription attachCapture(TelemetryBus bus, CaptureRecorder recorder) {
+        captureRecorder = recorder;
+        TelemetryBus.Subscription subscription = bus.subscribe("capture", "Block");
+        subscription.start((sequence, values, codes) -> {
+            try {
+                recorder.onSample(sequence, values, codes);
+            } catch (UncheckedIOException e) {
+                if (!captureFailed) {
+                    captureFailed = true; // Reported once; later captures are still attempted
+                    reportError("Failed to write capture", e.getCause());
+                }
+            }
+        });
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /// Runs handler on subscription's thread. An I/O failure is reported once and rethrown, which
+    /// detaches the subscription, so e.g. a full disk loses this log instead of stalling the run
+    private void startDetaching(TelemetryBus.Subscription subscription, TelemetryBus.SampleHandler handler, String header) {
+        subscription.start((sequence, values, codes) -> {
+            try {
+                handler.onSample(sequence, values, codes);
+            } catch (UncheckedIOException e) {
+                reportError(header, e.getCause());
+                throw e;
+            }
+        });
+    }
+
+    /// Null without attachCapture()
+    public CaptureRecorder getCaptureRecorder() {
+        return captureRecorder;
+    }
+
+    /// Compression ratio and encode throughput per channel; empty without attachCompressed()
+    public ChannelStats[] getCompressionStats() {
+        return compressedLog != null ? compressedLog.getStats() : new ChannelStats[0];
+    }
+
+    /// CSV writer for rotation and gzip settings; null before the first row or attach()
+    public CsvStreamWriter getCsvWriter() {
+        return csv;
+    }
+
+    /// Drains and detaches all subscriptions, then finishes the files
+    public synchronized void close() {
+        for (TelemetryBus.Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+        subscriptions.clear();
+        if (csv != null) {
+            try {
+                csv.close();
+            } catch (IOException e) {
+                reportError("Failed to write CSV file", e);
+            }
+            csv = null;
+        }
+        if (columnarLog != null) {
+            try {
+                columnarLog.close();
+            } catch (IOException e) {
+                reportError("Failed to close columnar log", e);
+            }
+            columnarLog = null;
+        }
+        if (compressedLog != null) {
+            try {
+                compressedLog.close();
+            } catch (IOException e) {
+                reportError("Failed to close compressed log", e);
+            }
+            compressedLog = null;
+        }
+        if (reducedLog != null) {
+            try {
+                reducedLog.close();
+            } catch (IOException e) {
+                reportError("Failed to close reduced log", e);
+            }
+            reducedLog = null;
+        }
+    }
+
+    /// Temperatures are not part of this call; those columns log NaN on this path
     public synchronized void logData(double time, double[] voltages, double[] currents, double speed, double torque, String controlMode, String fault) {
-        String line = String.format("%.3f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%s,%s\n",
-                time, voltages[0], voltages[1], voltages[2],
-                currents[0], currents[1], currents[2], speed, torque, controlMode, fault);
-        logBuffer.add(line);
-        if (logBuffer.size() >= maxBufferSize) {
-            exportToCSV();
+        if (csv == null) csv = new CsvStreamWriter(csvPath, new StringDictionary(), csvColumns);
+        row[TelemetryBus.TIME] = time;
+        row[TelemetryBus.VA] = voltages[0];
+        row[TelemetryBus.VB] = voltages[1];
+        row[TelemetryBus.VC] = voltages[2];
+        row[TelemetryBus.IA] = currents[0];
+        row[TelemetryBus.IB] = currents[1];
+        row[TelemetryBus.IC] = currents[2];
+        row[TelemetryBus.SPEED] = speed;
+        row[TelemetryBus.TORQUE] = torque;
+        rowCodes[TelemetryBus.CONTROL_MODE] = csv.getDictionary().encode(controlMode);
+        rowCodes[TelemetryBus.FAULT] = csv.getDictionary().encode(fault);
+        writeCsv(0, row, rowCodes);
+    }
+
+    private void writeCsv(long sequence, double[] values, int[] codes) {
+        if (csvFailed) return;
+        try {
+            csv.onSample(sequence, values, codes);
+        } catch (UncheckedIOException e) {
+            csvFailed = true; // Reported once; the run continues without CSV
+            reportError("Failed to write CSV file", e.getCause());
         }
     }
 
+    /// Writes buffered rows to the CSV file on the logData() path; attached loggers flush in close()
     public synchronized void exportToCSV() {
-        try (FileWriter writer = new FileWriter("simulation_data.csv")) {
-            for (String line : logBuffer) {
-                writer.write(line);
-            }
-            logBuffer.clear();
-            logBuffer.add("Time,Va,Vb,Vc,Ia,Ib,Ic,Speed,Torque,ControlMode,Fault\n");
-        } catch (IOException e) {
-            Platform.runLater(() -> {
-                Alert alert = new Alert(Alert.AlertType.ERROR);
-                alert.setTitle("File Error");
-                alert.setHeaderText("Failed to write CSV file");
-                alert.setContentText("Error: " + e.getMessage());
-                alert.showAndWait();
-            });
+        if (csv == null || csvFailed || !subscriptions.isEmpty()) return;
+        try {
+            csv.flush();
+        } catch (UncheckedIOException e) {
+            csvFailed = true;
+            reportError("Failed to write CSV file", e.getCause());
         }
     }
+
+    private void reportError(String header, IOException e) {
+        Platform.runLater(() -> {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("File Error");
+            alert.setHeaderText(header);
+            alert.setContentText("Error: " + e.getMessage());
+            alert.showAndWait();
+        });
+    }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package inverter_drive.simulation.software;
+
+/// Immutable per-run configuration of one drive. Built once and handed to each component, so
+/// differently configured simulations can share a JVM without global state; Config only supplies
+/// the defaults.
+public record DriveConfig(double timeStep, // seconds
+                          double ambientTemperature, // °C
+                          ThermalConfig motorThermal,
+                          ThermalConfig inverterThermal,
+                          SensorConfig sensor,
+                          FaultConfig fault) {
+    public static final DriveConfig DEFAULT = new DriveConfig(Config.SIMULATION_TIME_STEP, Config.AMBIENT_TEMPERATURE,
+            ThermalConfig.MOTOR, ThermalConfig.INVERTER, SensorConfig.DEFAULT, FaultConfig.DEFAULT);
+
+    public DriveConfig {
+        if (!(timeStep > 0)) throw new IllegalArgumentException("Time step must be positive");
+        if (motorThermal == null || inverterThermal == null || sensor == null || fault == null) {
+            throw new IllegalArgumentException("Configuration sections must not be null");
+        }
+    }
+
+    public DriveConfig withTimeStep(double timeStep) {
+        return new DriveConfig(timeStep, ambientTemperature, motorThermal, inverterThermal, sensor, fault);
+    }
+
+    public DriveConfig withAmbientTemperature(double ambientTemperature) {
+        return new DriveConfig(timeStep, ambientTemperature, motorThermal, inverterThermal, sensor, fault);
+    }
+
+    public DriveConfig withMotorThermal(ThermalConfig motorThermal) {
+        return new DriveConfig(timeStep, ambientTemperature, motorThermal, inverterThermal, sensor, fault);
+    }
+
+    public DriveConfig withInverterThermal(ThermalConfig inverterThermal) {
+        return new DriveConfig(timeStep, ambientTemperature, motorThermal, inverterThermal, sensor, fault);
+    }
+
+    public DriveConfig withSensor(SensorConfig sensor) {
+        return new DriveConfig(timeStep, ambientTemperature, motorThermal, inverterThermal, sensor, fault);
+    }
+
+    public DriveConfig withFault(FaultConfig fault) {
+        return new DriveConfig(timeStep, ambientTemperature, motorThermal, inverterThermal, sensor, fault);
+    }
+}
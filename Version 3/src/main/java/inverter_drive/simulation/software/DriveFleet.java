@@ -0,0 +1,530 @@
+package inverter_drive.simulation.software;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+
+/// Struct-of-arrays engine for many independent drives. Each drive runs the same
+/// controller → inverter → fault → sensor → motor chain as SimulationEngine, but all
+/// state lives in contiguous primitive arrays and drives are stepped in tight loops
+/// split across cores.
+public class DriveFleet {
+    public static final String[] FAULT_NAMES = {"None", "Overcurrent", "Undervoltage", "Phase Loss", "Overheat", "IGBTFailure"};
+    private static final int FAULT_NONE = 0;
+    private static final int FAULT_OVERCURRENT = 1;
+    private static final int FAULT_UNDERVOLTAGE = 2;
+    private static final int FAULT_PHASE_LOSS = 3;
+    private static final int FAULT_OVERHEAT = 4;
+    private static final int FAULT_IGBT = 5;
+    private static final double SQRT3 = Math.sqrt(3);
+    private static final double MAX_VOLTAGE = 230.0; // VfController maxVoltage
+    private static final double[][] VOLTAGE_VECTORS = {
+            {0, 0, 0}, {1, 0, 0}, {1, 1, 0}, {0, 1, 0}, {0, 1, 1}, {0, 0, 1}, {1, 0, 1}, {1, 1, 1}, {0, 0, 0}
+    };
+    private static final int[] DTC_VECTOR = {2, 7, 6, 3, 0, 5, 4, 8, 4}; // {flux, torque} -> vector
+
+    private final int size;
+    private final int chunkSize;
+    private double simulationTime = 0.0;
+    /// Fleet-wide step inputs
+    private String controlMode = "V/f";
+    private String pwmType = "SPWM";
+    private String svpwmMethod = "Sector";
+    private String loadType = "Constant";
+    private boolean autoReset = false;
+    private double maxTemp = 150.0;
+    private String protectionMode = "Warning";
+    /// References
+    private final double[] speedRef, torqueRef, fluxRef, accelRate, direction;
+    /// Controller state
+    private final double[] kp, ki, integralError, torqueErrorIntegral, fluxErrorIntegral, vfFrequency;
+    /// Inverter state
+    private final double[] dcLinkVoltage, pwmFrequency, deadTime, modulationIndex;
+    private final boolean[] harmonicInjection, overmodulation;
+    private final double[] inverterTemperature, inverterFanSpeed, inverterCoolantFlow;
+    /// Motor state
+    private final double[] speed, torque, rotorFlux, temperature, id, iq;
+    private final double[] ratedVoltage, polePairs, resistance, inductance, loadInertia, damping,
+            shaftInertia, friction, tempCoefficient, couplingStiffness, motorFanSpeed, motorCoolantFlow;
+    /// Fault and sensor state
+    private final int[] fault;
+    private final double[] faultTime;
+    private final boolean[] sensorFault;
+    private final double[] partialFailureScale;
+    private final RandomGenerator[] noise;
+    private final RandomGenerator[] faultRandom;
+    /// Per-drive configuration; the fleet steps all drives with the fleet-wide Config.SIMULATION_TIME_STEP
+    private final DriveConfig[] configs;
+
+    public DriveFleet(int size) {
+        this.size = size;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        this.chunkSize = Math.max(64, (size + 4 * parallelism - 1) / (4 * parallelism));
+        speedRef = filled(100.0);
+        torqueRef = filled(50.0);
+        fluxRef = filled(1.0);
+        accelRate = filled(10.0);
+        direction = filled(1.0);
+        kp = filled(0.1);
+        ki = filled(0.01);
+        integralError = new double[size];
+        torqueErrorIntegral = new double[size];
+        fluxErrorIntegral = new double[size];
+        vfFrequency = new double[size];
+        dcLinkVoltage = filled(400.0);
+        pwmFrequency = filled(10000);
+        deadTime = filled(1e-6);
+        modulationIndex = filled(0.8);
+        harmonicInjection = new boolean[size];
+        overmodulation = new boolean[size];
+        inverterTemperature = filled(25.0);
+        inverterFanSpeed = filled(0.5);
+        inverterCoolantFlow = filled(5.0);
+        speed = new double[size];
+        torque = new double[size];
+        rotorFlux = filled(1.0);
+        temperature = filled(25.0);
+        id = new double[size];
+        iq = new double[size];
+        ratedVoltage = filled(230.0);
+        polePairs = filled(2);
+        resistance = filled(0.5);
+        inductance = filled(0.01);
+        loadInertia = filled(0.1);
+        damping = filled(0.01);
+        shaftInertia = filled(0.05);
+        friction = filled(0.01);
+        tempCoefficient = filled(0.005);
+        couplingStiffness = filled(5000);
+        motorFanSpeed = filled(0.5);
+        motorCoolantFlow = filled(5.0);
+        fault = new int[size];
+        faultTime = new double[size];
+        sensorFault = new boolean[size];
+        partialFailureScale = filled(1.0);
+        noise = new RandomGenerator[size];
+        faultRandom = new RandomGenerator[size];
+        configs = new DriveConfig[size];
+        Arrays.fill(configs, DriveConfig.DEFAULT);
+        SplittableRandom root = new SplittableRandom();
+        for (int k = 0; k < size; k++) {
+            noise[k] = root.split();
+            faultRandom[k] = root.split();
+        }
+    }
+
+    private double[] filled(double value) {
+        double[] array = new double[size];
+        Arrays.fill(array, value);
+        return array;
+    }
+
+    /// Advances every drive by n steps; chunks of drives run in parallel
+    public void step(int n) {
+        final double startTime = simulationTime;
+        int chunks = (size + chunkSize - 1) / chunkSize;
+        if (chunks <= 1) {
+            stepRange(0, size, n, startTime);
+        } else {
+            IntStream.range(0, chunks).parallel().forEach(c ->
+                    stepRange(c * chunkSize, Math.min(size, (c + 1) * chunkSize), n, startTime));
+        }
+        double time = startTime;
+        for (int s = 0; s < n; s++) {
+            time += Config.SIMULATION_TIME_STEP;
+        }
+        simulationTime = time;
+    }
+
+    public void runUntil(double endTime) {
+        int n = 0;
+        double time = simulationTime;
+        while (time + 0.5 * Config.SIMULATION_TIME_STEP < endTime) {
+            time += Config.SIMULATION_TIME_STEP;
+            n++;
+        }
+        step(n);
+    }
+
+    private void stepRange(int from, int to, int n, double startTime) {
+        final double dt = Config.SIMULATION_TIME_STEP;
+        final int mode = controlMode.equals("DTC") ? 2 : controlMode.equals("FOC") ? 1 : 0;
+        final boolean svpwm = pwmType.equals("SVPWM");
+        final boolean carrier = svpwmMethod.equals("Carrier");
+        final int load = loadType.equals("Fan/Pump") ? 1 : loadType.equals("Inertia") ? 2 : 0;
+        final boolean shutdown = protectionMode.equals("Shutdown");
+        final boolean warning = protectionMode.equals("Warning");
+        double time = startTime;
+        for (int s = 0; s < n; s++) {
+            for (int k = from; k < to; k++) {
+                /// Controller
+                double p0, p1, p2;
+                if (mode == 2) {
+                    double torqueError = torqueRef[k] - torque[k];
+                    double fluxError = fluxRef[k] - rotorFlux[k];
+                    int torqueState = Math.abs(torqueError) > 0.05 * torqueRef[k] ? (torqueError > 0 ? 1 : -1) : 0;
+                    int fluxState = Math.abs(fluxError) > 0.05 * fluxRef[k] ? (fluxError > 0 ? 1 : -1) : 0;
+                    double[] va = VOLTAGE_VECTORS[DTC_VECTOR[(fluxState + 1) * 3 + (torqueState + 1)]];
+                    double phaseVoltage = ratedVoltage[k] / Math.sqrt(3);
+                    p0 = 0.5 * (1 + va[0] * MAX_VOLTAGE / phaseVoltage);
+                    p1 = 0.5 * (1 + va[1] * MAX_VOLTAGE / phaseVoltage);
+                    p2 = 0.5 * (1 + va[2] * MAX_VOLTAGE / phaseVoltage);
+                } else if (mode == 1) {
+                    double speedError = speedRef[k] - speed[k];
+                    double torqueRefAdjusted = kp[k] * speedError + ki[k] * (integralError[k] += speedError * dt);
+                    double torqueError = torqueRefAdjusted - torque[k];
+                    double fluxError = fluxRef[k] - rotorFlux[k];
+                    double vq = 0.5 * torqueError + 0.05 * (torqueErrorIntegral[k] += torqueError * dt);
+                    double vd = 0.3 * fluxError + 0.03 * (fluxErrorIntegral[k] += fluxError * dt);
+                    double theta = 2 * Math.PI * speedRef[k] * time * direction[k];
+                    double va = vd * Math.cos(theta) - vq * Math.sin(theta);
+                    double vb = vd * Math.cos(theta - 2 * Math.PI / 3) - vq * Math.sin(theta - 2 * Math.PI / 3);
+                    double vc = vd * Math.cos(theta + 2 * Math.PI / 3) - vq * Math.sin(theta + 2 * Math.PI / 3);
+                    double max = Math.max(Math.abs(va), Math.max(Math.abs(vb), Math.abs(vc)));
+                    if (max > 0) {
+                        va /= max;
+                        vb /= max;
+                        vc /= max;
+                    }
+                    p0 = 0.5 * (1 + va);
+                    p1 = 0.5 * (1 + vb);
+                    p2 = 0.5 * (1 + vc);
+                } else {
+                    double speedError = speedRef[k] - speed[k];
+                    integralError[k] += speedError * dt;
+                    double freq = kp[k] * speedError + ki[k] * integralError[k];
+                    double maxFreqChange = accelRate[k] * dt / (2 * Math.PI);
+                    freq = Math.max(Math.min(freq, vfFrequency[k] + maxFreqChange), vfFrequency[k] - maxFreqChange);
+                    vfFrequency[k] = freq;
+                    double omega = 2 * Math.PI * freq * direction[k];
+                    p0 = 0.5 * (1 + Math.sin(omega * time));
+                    p1 = 0.5 * (1 + Math.sin(omega * time - 2 * Math.PI / 3));
+                    p2 = 0.5 * (1 + Math.sin(omega * time + 2 * Math.PI / 3));
+                }
+                /// Inverter
+                double vdc = dcLinkVoltage[k];
+                double fsw = pwmFrequency[k];
+                double deadTimeFactor = 1.0 - deadTime[k] * fsw;
+                double modFactor = modulationIndex[k] * (overmodulation[k] ? 1.15 : 1.0);
+                double d0, d1, d2;
+                if (svpwm && carrier) {
+                    /// Min/max zero-sequence injection, see SvpwmKernel
+                    double vRefA = 2.0 * p0 - 1.0;
+                    double vRefB = 2.0 * p1 - 1.0;
+                    double vRefC = 2.0 * p2 - 1.0;
+                    double offset = 0.5 * (Math.max(vRefA, Math.max(vRefB, vRefC)) + Math.min(vRefA, Math.min(vRefB, vRefC)));
+                    double gain = 1.0 / vdc;
+                    d0 = 0.5 + (vRefA - offset) * gain;
+                    d1 = 0.5 + (vRefB - offset) * gain;
+                    d2 = 0.5 + (vRefC - offset) * gain;
+                } else if (svpwm) {
+                    double vRefA = 2.0 * p0 - 1.0;
+                    double vRefB = 2.0 * p1 - 1.0;
+                    double vRefC = 2.0 * p2 - 1.0;
+                    double vAlpha = (2.0 / 3.0) * (vRefA - 0.5 * (vRefB + vRefC));
+                    double vBeta = (1.0 / Math.sqrt(3)) * (vRefB - vRefC);
+                    double vMag = Math.sqrt(vAlpha * vAlpha + vBeta * vBeta);
+                    double theta = Math.atan2(vBeta, vAlpha);
+                    int sector = (int) Math.floor(theta / (Math.PI / 3.0)) % 6;
+                    if (sector < 0) sector += 6;
+                    double sectorAngle = theta - sector * Math.PI / 3.0;
+                    double m = vMag * Math.sqrt(3) / vdc;
+                    double T = 1.0 / fsw;
+                    double T1 = m * T * Math.sin(Math.PI / 3.0 - sectorAngle);
+                    double T2 = m * T * Math.sin(sectorAngle);
+                    double T0 = T - T1 - T2;
+                    double high = (T1 + T2 + T0 / 2) / T;
+                    double low = T0 / (2 * T);
+                    switch (sector) {
+                        case 0: d0 = high; d1 = (T2 + T0 / 2) / T; d2 = low; break;
+                        case 1: d0 = (T1 + T0 / 2) / T; d1 = high; d2 = low; break;
+                        case 2: d0 = low; d1 = high; d2 = (T2 + T0 / 2) / T; break;
+                        case 3: d0 = low; d1 = (T1 + T0 / 2) / T; d2 = high; break;
+                        case 4: d0 = (T2 + T0 / 2) / T; d1 = low; d2 = high; break;
+                        default: d0 = high; d1 = low; d2 = (T1 + T0 / 2) / T; break;
+                    }
+                } else {
+                    d0 = p0;
+                    d1 = p1;
+                    d2 = p2;
+                }
+                if (harmonicInjection[k]) {
+                    double harmonic = 0.1 * Math.sin(3 * Math.PI * fsw * time);
+                    d0 += harmonic;
+                    d1 += harmonic;
+                    d2 += harmonic;
+                }
+                double va = d0 * vdc * deadTimeFactor * modFactor;
+                double vb = d1 * vdc * deadTimeFactor * modFactor;
+                double vc = d2 * vdc * deadTimeFactor * modFactor;
+                inverterTemperature[k] = nextInverterTemperature(k, fsw * 0.0001 * vdc);
+                /// Faults
+                final DriveConfig config = configs[k];
+                final FaultConfig faultConfig = config.fault();
+                double motorTemp = temperature[k];
+                int f = fault[k];
+                boolean tripped = false;
+                if (motorTemp > maxTemp || inverterTemperature[k] > maxTemp) {
+                    if (shutdown) {
+                        f = FAULT_OVERHEAT;
+                        tripped = true;
+                    } else if (warning && f != FAULT_OVERHEAT) {
+                        f = FAULT_OVERHEAT;
+                        faultTime[k] = time;
+                    }
+                }
+                if (!tripped) {
+                    if (autoReset && f != FAULT_NONE && time - faultTime[k] > faultConfig.autoResetDelay()) {
+                        f = FAULT_NONE;
+                    }
+                    switch (f) {
+                        case FAULT_OVERCURRENT:
+                            va *= faultConfig.overcurrentVoltageScale();
+                            vb *= faultConfig.overcurrentVoltageScale();
+                            vc *= faultConfig.overcurrentVoltageScale();
+                            break;
+                        case FAULT_UNDERVOLTAGE:
+                            va *= faultConfig.undervoltageVoltageScale();
+                            vb *= faultConfig.undervoltageVoltageScale();
+                            vc *= faultConfig.undervoltageVoltageScale();
+                            break;
+                        case FAULT_PHASE_LOSS:
+                            va = 0;
+                            break;
+                        case FAULT_OVERHEAT:
+                            if (shutdown) {
+                                va = 0;
+                                vb = 0;
+                                vc = 0;
+                            }
+                            break;
+                        case FAULT_IGBT:
+                            if (faultRandom[k].nextDouble() < faultConfig.igbtFailureDutyCycle()) {
+                                va = 0;
+                            }
+                            break;
+                    }
+                } else {
+                    va = 0;
+                    vb = 0;
+                    vc = 0;
+                }
+                fault[k] = f;
+                /// Sensors
+                double r = resistance[k];
+                double l = inductance[k];
+                double ia = 0, ib = 0, ic = 0;
+                if (!sensorFault[k]) {
+                    double z = r + l * 0.1;
+                    double partial = partialFailureScale[k];
+                    RandomGenerator random = noise[k];
+                    double sigma = config.sensor().noiseStdDev();
+                    ia = va / z;
+                    ia += random.nextGaussian() * sigma * ia;
+                    ia *= partial;
+                    ib = vb / z;
+                    ib += random.nextGaussian() * sigma * ib;
+                    ib *= partial;
+                    ic = vc / z;
+                    ic += random.nextGaussian() * sigma * ic;
+                    ic *= partial;
+                }
+                /// Motor
+                temperature[k] = nextMotorTemperature(k, (ia * ia + ib * ib + ic * ic) * r);
+                double q = (2.0 / 3.0) * (ia - 0.5 * (ib + ic));
+                double d = (1.0 / SQRT3) * (ib - ic);
+                iq[k] = q;
+                id[k] = d;
+                double flux = rotorFlux[k];
+                double te = 1.5 * polePairs[k] * flux * q;
+                torque[k] = te;
+                rotorFlux[k] = flux + dt * (-flux / l + d);
+                double w = speed[k];
+                double loadTorque = load == 1 ? 0.1 * w * w : load == 2 ? 0.0 : 10.0;
+                double totalInertia = loadInertia[k] + shaftInertia[k];
+                double couplingEffect = couplingStiffness[k] * w * dt;
+                double acceleration = (te - loadTorque - (damping[k] + friction[k]) * w - couplingEffect) / totalInertia;
+                w += acceleration * dt;
+                speed[k] = w < 0 ? 0 : w;
+            }
+            time += dt;
+        }
+    }
+
+    private double nextInverterTemperature(int k, double switchingLosses) {
+        DriveConfig config = configs[k];
+        return nextTemperature(inverterTemperature[k], switchingLosses, config.inverterThermal(),
+                config.ambientTemperature(), inverterFanSpeed[k], inverterCoolantFlow[k]);
+    }
+
+    private double nextMotorTemperature(int k, double iSquaredR) {
+        DriveConfig config = configs[k];
+        return nextTemperature(temperature[k], iSquaredR, config.motorThermal(),
+                config.ambientTemperature(), motorFanSpeed[k], motorCoolantFlow[k]);
+    }
+
+    private static double nextTemperature(double t, double losses, ThermalConfig thermal, double ambient,
+                                          double fanSpeed, double coolantFlow) {
+        double heatGeneration = losses * thermal.thermalResistance();
+        double h = thermal.convection(fanSpeed, coolantFlow);
+        double T_K = t + 273.15;
+        double T_amb_K = ambient + 273.15;
+        double Q_conv = h * thermal.surfaceArea() * (t - ambient);
+        double Q_rad = thermal.emissivity() * Config.STEFAN_BOLTZMANN * thermal.surfaceArea()
+                * (Math.pow(T_K, 4) - Math.pow(T_amb_K, 4));
+        double coolingEffect = (Q_conv + Q_rad) / thermal.thermalCapacitance();
+        t += (heatGeneration - coolingEffect) * Config.SIMULATION_TIME_STEP;
+        return t < ambient ? ambient : t;
+    }
+
+    /// Thermal, sensor and fault parameters of one drive; its timeStep must be the fleet-wide
+    /// Config.SIMULATION_TIME_STEP
+    public void setConfig(int drive, DriveConfig config) {
+        if (config.timeStep() != Config.SIMULATION_TIME_STEP) {
+            throw new IllegalArgumentException("Drive time step " + config.timeStep()
+                    + " differs from the fleet step " + Config.SIMULATION_TIME_STEP);
+        }
+        configs[drive] = config;
+    }
+
+    public DriveConfig getConfig(int drive) {
+        return configs[drive];
+    }
+
+    public void setControlMode(String controlMode) {
+        this.controlMode = controlMode;
+    }
+
+    public void setPwmType(String pwmType) {
+        this.pwmType = pwmType;
+    }
+
+    /// "Sector" (default) or "Carrier"; see SvpwmKernel
+    public void setSvpwmMethod(String svpwmMethod) {
+        this.svpwmMethod = svpwmMethod;
+    }
+
+    public void setLoadType(String loadType) {
+        this.loadType = loadType;
+    }
+
+    public void setProtection(boolean autoReset, double maxTemp, String protectionMode) {
+        this.autoReset = autoReset;
+        this.maxTemp = maxTemp;
+        this.protectionMode = protectionMode;
+    }
+
+    public void setReferences(int drive, double speedRef, double torqueRef, double fluxRef,
+                              double accelRate, double direction) {
+        this.speedRef[drive] = speedRef;
+        this.torqueRef[drive] = torqueRef;
+        this.fluxRef[drive] = fluxRef;
+        this.accelRate[drive] = accelRate;
+        this.direction[drive] = direction;
+    }
+
+    public void setGains(int drive, double kp, double ki) {
+        this.kp[drive] = kp;
+        this.ki[drive] = ki;
+    }
+
+    public void setMotorParameters(int drive, double ratedVoltage, int polePairs,
+                                   double resistance, double inductance,
+                                   double loadInertia, double damping, double shaftInertia,
+                                   double friction, double tempCoefficient, double couplingStiffness,
+                                   double fanSpeed, double coolantFlow) {
+        this.ratedVoltage[drive] = ratedVoltage;
+        this.polePairs[drive] = polePairs;
+        this.resistance[drive] = resistance;
+        this.inductance[drive] = inductance;
+        this.loadInertia[drive] = loadInertia;
+        this.damping[drive] = damping;
+        this.shaftInertia[drive] = shaftInertia;
+        this.friction[drive] = friction;
+        this.tempCoefficient[drive] = tempCoefficient;
+        this.couplingStiffness[drive] = couplingStiffness;
+        this.motorFanSpeed[drive] = fanSpeed;
+        this.motorCoolantFlow[drive] = coolantFlow;
+    }
+
+    public void setInverterParameters(int drive, double dcLinkVoltage, double pwmFrequency, double deadTime,
+                                      double modulationIndex, boolean harmonicInjection, boolean overmodulation,
+                                      double fanSpeed, double coolantFlow) {
+        this.dcLinkVoltage[drive] = dcLinkVoltage;
+        this.pwmFrequency[drive] = pwmFrequency;
+        this.deadTime[drive] = deadTime;
+        this.modulationIndex[drive] = modulationIndex;
+        this.harmonicInjection[drive] = harmonicInjection;
+        this.overmodulation[drive] = overmodulation;
+        this.inverterFanSpeed[drive] = fanSpeed;
+        this.inverterCoolantFlow[drive] = coolantFlow;
+    }
+
+    /// Seeds the drive's sensor and fault streams exactly like new SimulationEngine(seed)
+    public void setSeed(int drive, long seed) {
+        SplittableRandom root = new SplittableRandom(seed);
+        noise[drive] = root.split();
+        faultRandom[drive] = root.split();
+    }
+
+    public void setSensorFault(int drive, boolean fault) {
+        sensorFault[drive] = fault;
+    }
+
+    public void setPartialFailureScale(int drive, double scale) {
+        partialFailureScale[drive] = Math.max(0.0, Math.min(1.0, scale));
+    }
+
+    public void injectFault(int drive, String faultType) {
+        int code = Arrays.asList(FAULT_NAMES).indexOf(faultType);
+        if (code > FAULT_NONE) {
+            fault[drive] = code;
+            faultTime[drive] = simulationTime;
+        }
+    }
+
+    public void clearFault(int drive) {
+        fault[drive] = FAULT_NONE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getSimulationTime() {
+        return simulationTime;
+    }
+
+    public String getCurrentFault(int drive) {
+        return FAULT_NAMES[fault[drive]];
+    }
+
+    public double getSpeed(int drive) {
+        return speed[drive];
+    }
+
+    public double getTorque(int drive) {
+        return torque[drive];
+    }
+
+    public double getRotorFlux(int drive) {
+        return rotorFlux[drive];
+    }
+
+    public double getMotorTemperature(int drive) {
+        return temperature[drive];
+    }
+
+    public double getInverterTemperature(int drive) {
+        return inverterTemperature[drive];
+    }
+
+    public double getId(int drive) {
+        return id[drive];
+    }
+
+    public double getIq(int drive) {
+        return iq[drive];
+    }
+}
@@ -0,0 +1,100 @@
+package inverter_drive.simulation.software;
+
+import java.util.concurrent.ForkJoinPool;
+
+/// Verifies that every DriveFleet drive reproduces new SimulationEngine(seed) bit for bit, for each
+/// control mode and PWM type with and without injected faults, then times fleet.step(n) on pools of
+/// increasing size to show how the fleet scales with cores.
+/// Run: java inverter_drive.simulation.software.DriveFleetCheck [drives] [steps]
+public class DriveFleetCheck {
+    private static final String[] FAULTS = {"None", "Overcurrent", "Undervoltage", "Phase Loss", "IGBTFailure"};
+    private static final int VERIFY_STEPS = 5000;
+    private static final int FAULT_STEP = 1000;
+
+    public static void main(String[] args) {
+        int drives = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        boolean passed = true;
+        for (String controlMode : new String[]{"V/f", "FOC", "DTC"}) {
+            for (String pwmType : new String[]{"SPWM", "SVPWM"}) {
+                passed &= verify(controlMode, pwmType);
+            }
+        }
+        benchmark(drives, steps);
+        if (!passed) System.exit(1);
+    }
+
+    /// One fleet drive per fault case, each against its own scalar engine with the same seed
+    private static boolean verify(String controlMode, String pwmType) {
+        DriveFleet fleet = new DriveFleet(FAULTS.length);
+        fleet.setControlMode(controlMode);
+        fleet.setPwmType(pwmType);
+        SimulationEngine[] engines = new SimulationEngine[FAULTS.length];
+        for (int k = 0; k < FAULTS.length; k++) {
+            fleet.setSeed(k, k + 1);
+            engines[k] = new SimulationEngine(k + 1);
+            engines[k].setControlMode(controlMode);
+            engines[k].setPwmType(pwmType);
+        }
+        fleet.step(FAULT_STEP);
+        for (int k = 0; k < FAULTS.length; k++) {
+            engines[k].step(FAULT_STEP);
+            if (!FAULTS[k].equals("None")) {
+                fleet.injectFault(k, FAULTS[k]);
+                engines[k].injectFault(FAULTS[k]);
+            }
+        }
+        fleet.step(VERIFY_STEPS - FAULT_STEP);
+        int mismatches = 0;
+        for (int k = 0; k < FAULTS.length; k++) {
+            SimulationEngine engine = engines[k];
+            engine.step(VERIFY_STEPS - FAULT_STEP);
+            if (!same(fleet.getSpeed(k), engine.getSpeed())
+                    || !same(fleet.getTorque(k), engine.getTorque())
+                    || !same(fleet.getRotorFlux(k), engine.getMotor().getRotorFlux())
+                    || !same(fleet.getMotorTemperature(k), engine.getMotorTemperature())
+                    || !same(fleet.getInverterTemperature(k), engine.getInverterTemperature())
+                    || !fleet.getCurrentFault(k).equals(engine.getCurrentFault())) {
+                mismatches++;
+                System.out.printf("  %s fault: fleet speed %s fault %s, scalar speed %s fault %s%n", FAULTS[k],
+                        fleet.getSpeed(k), fleet.getCurrentFault(k), engine.getSpeed(), engine.getCurrentFault());
+            }
+        }
+        boolean passed = mismatches == 0;
+        System.out.printf("verify %-4s %-6s %d drives x %d steps: %d mismatches %s%n", controlMode, pwmType,
+                FAULTS.length, VERIFY_STEPS, mismatches, passed ? "PASS" : "FAIL");
+        return passed;
+    }
+
+    private static boolean same(double a, double b) {
+        return Double.doubleToLongBits(a) == Double.doubleToLongBits(b);
+    }
+
+    /// Parallel streams run on the pool that invokes them, so each pool size gets its own pool
+    private static void benchmark(int drives, int steps) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%-6s %14s %10s %11s%n", "pool", "drive-steps/s", "speedup", "efficiency");
+        double baseline = 0;
+        for (int threads = 1; ; threads = Math.min(2 * threads, cores)) { // Powers of two, then all cores
+            double rate = rate(drives, steps, threads);
+            if (threads == 1) baseline = rate;
+            System.out.printf("%-6d %14.3e %9.2fx %10.0f%%%n", threads, rate, rate / baseline,
+                    100 * rate / baseline / threads);
+            if (threads == cores) break;
+        }
+    }
+
+    private static double rate(int drives, int steps, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            DriveFleet fleet = new DriveFleet(drives);
+            pool.submit(() -> fleet.step(steps)).join(); // Warm-up
+            long start = System.nanoTime();
+            pool.submit(() -> fleet.step(steps)).join();
+            long elapsed = System.nanoTime() - start;
+            return (double) drives * steps / (elapsed * 1e-9);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
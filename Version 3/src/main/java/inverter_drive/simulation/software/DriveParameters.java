@@ -0,0 +1,23 @@
+package inverter_drive.simulation.software;
+
+/// Immutable snapshot of every operator input. The UI builds a new one when a control changes and
+/// publishes it with SimulationEngine.publish(); the engine applies it at the next step boundary,
+/// so the step loop reads plain fields and never touches UI state.
+public record DriveParameters(
+        /// Control
+        String controlMode, String pwmType, String loadType,
+        double speedRef, double torqueRef, double fluxRef, double accelRate, double direction,
+        double kp, double ki,
+        /// Inverter
+        double dcLinkVoltage, double pwmFrequency, double deadTime, double modulationIndex,
+        boolean harmonicInjection, boolean overmodulation,
+        /// Motor and load
+        double ratedVoltage, double ratedPower, int polePairs, double resistance, double inductance,
+        double loadInertia, double damping, double shaftInertia, double friction,
+        double tempCoefficient, double couplingStiffness,
+        /// Cooling, shared by motor and inverter
+        double fanSpeed, double coolantFlow,
+        /// Protection
+        boolean autoReset, double maxTemp, String protectionMode,
+        DriveConfig config) {
+}
@@ -0,0 +1,9 @@
+package inverter_drive.simulation.software;
+
+/// Immutable view of the engine state at the end of a batch, published for display threads.
+/// sequence counts publications; publishedNanos is System.nanoTime() at publication.
+public record EngineSnapshot(long sequence, long publishedNanos, double time, long stepCount,
+                             double[] phaseVoltages, double[] phaseCurrents,
+                             double speed, double torque, double motorTemperature, double inverterTemperature,
+                             String fault, double dcLinkVoltage, double maxCurrent, double realTimeFactor) {
+}
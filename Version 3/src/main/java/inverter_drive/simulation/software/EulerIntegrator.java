@@ -0,0 +1,21 @@
+package inverter_drive.simulation.software;
+
+/// Explicit forward Euler, first order; the historical motor integrator
+public class EulerIntegrator extends FixedStepIntegrator {
+    @Override
+    public void integrate(OdeSystem system, double t, double[] y, double h) {
+        int n = system.dimension();
+        ensureCapacity(n, 1);
+        double[] k1 = stages[0];
+        system.derivatives(t, y, k1);
+        for (int i = 0; i < n; i++) {
+            y[i] += h * k1[i];
+        }
+        countStep();
+    }
+
+    @Override
+    public String getName() {
+        return "Euler";
+    }
+}
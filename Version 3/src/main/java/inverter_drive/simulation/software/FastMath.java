@@ -0,0 +1,97 @@
+package inverter_drive.simulation.software;
+
+/// Table and polynomial replacements for the hot trigonometric and power kernels.
+/// Error bounds (measured by FastMathBenchmark against java.lang.Math):
+///   sin / cos : |error| ≤ 1e-15 absolute for |x| ≤ 1.6e6 rad (reduction degrades gradually beyond)
+///   atan2     : |error| ≤ 2e-10 rad over the full plane
+///   PhaseOscillator : |error| ≤ 1e-12 between resyncs, steady or V/f-ramped increment
+///   pow4 / powInt : repeated squaring, within a few ulp relative
+/// Components switch between these and Math through their setFastMath flag ("Exact" stays bit-identical).
+public final class FastMath {
+    private static final int TABLE_BITS = 12;
+    private static final int TABLE_SIZE = 1 << TABLE_BITS;
+    private static final int TABLE_MASK = TABLE_SIZE - 1;
+    private static final double STEP = 2 * Math.PI / TABLE_SIZE;
+    private static final double INV_STEP = TABLE_SIZE / (2 * Math.PI);
+    /// Cody-Waite split of the true 2π / 4096: STEP_HI keeps 23 significant bits so k * STEP_HI is exact
+    /// for |k| < 2^30, and STEP_LO carries the remainder including the rounding error of Math.PI
+    private static final double STEP_HI = Double.longBitsToDouble(Double.doubleToRawLongBits(STEP) & 0xFFFFFFFFC0000000L);
+    private static final double PI_ERROR = 1.2246467991473532e-16; // π - Math.PI
+    private static final double STEP_LO = (STEP - STEP_HI) + 2 * PI_ERROR / TABLE_SIZE;
+    private static final double[] SIN_TABLE = new double[TABLE_SIZE];
+    private static final double[] COS_TABLE = new double[TABLE_SIZE];
+    private static final double SQRT3 = Math.sqrt(3);
+    private static final double TAN_PI_12 = 2 - SQRT3;
+
+    static {
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            SIN_TABLE[i] = Math.sin(i * STEP);
+            COS_TABLE[i] = Math.cos(i * STEP);
+        }
+    }
+
+    private FastMath() {
+    }
+
+    /// Nearest table entry plus a quartic correction: sin(a + b) with |b| ≤ π / 4096
+    public static double sin(double x) {
+        double k = Math.rint(x * INV_STEP);
+        double b = (x - k * STEP_HI) - k * STEP_LO;
+        int i = (int) ((long) k & TABLE_MASK);
+        double b2 = b * b;
+        double cosB = 1 - b2 * (0.5 - b2 * (1.0 / 24));
+        double sinB = b * (1 - b2 * (1.0 / 6 - b2 * (1.0 / 120)));
+        return SIN_TABLE[i] * cosB + COS_TABLE[i] * sinB;
+    }
+
+    public static double cos(double x) {
+        double k = Math.rint(x * INV_STEP);
+        double b = (x - k * STEP_HI) - k * STEP_LO;
+        int i = (int) ((long) k & TABLE_MASK);
+        double b2 = b * b;
+        double cosB = 1 - b2 * (0.5 - b2 * (1.0 / 24));
+        double sinB = b * (1 - b2 * (1.0 / 6 - b2 * (1.0 / 120)));
+        return COS_TABLE[i] * cosB - SIN_TABLE[i] * sinB;
+    }
+
+    /// Octant reduction to [0, 1], a π/6 shift to [0, tan(π/12)], then an odd series to z^13
+    public static double atan2(double y, double x) {
+        double ax = Math.abs(x);
+        double ay = Math.abs(y);
+        /// Zeros, infinities and NaN keep the exact special-case semantics
+        if (ax == 0 && ay == 0 || !(ax < Double.POSITIVE_INFINITY && ay < Double.POSITIVE_INFINITY)) {
+            return Math.atan2(y, x);
+        }
+        boolean swap = ay > ax;
+        double z = swap ? ax / ay : ay / ax;
+        double offset = 0;
+        if (z > TAN_PI_12) {
+            z = (z * SQRT3 - 1) / (z + SQRT3);
+            offset = Math.PI / 6;
+        }
+        double z2 = z * z;
+        double a = offset + z * (1 - z2 * (1.0 / 3 - z2 * (1.0 / 5 - z2 * (1.0 / 7
+                - z2 * (1.0 / 9 - z2 * (1.0 / 11 - z2 * (1.0 / 13)))))));
+        if (swap) a = Math.PI / 2 - a;
+        if (x < 0) a = Math.PI - a;
+        return Math.copySign(a, y);
+    }
+
+    public static double pow4(double x) {
+        double x2 = x * x;
+        return x2 * x2;
+    }
+
+    /// x^n for integer n by repeated squaring
+    public static double powInt(double x, int n) {
+        if (n < 0) return 1.0 / powInt(x, -n);
+        double result = 1.0;
+        double base = x;
+        while (n != 0) {
+            if ((n & 1) != 0) result *= base;
+            base *= base;
+            n >>>= 1;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,110 @@
+package inverter_drive.simulation.software;
+
+import java.util.SplittableRandom;
+
+/// Per-kernel speedup and maximum error of FastMath against java.lang.Math.
+/// Run: java inverter_drive.simulation.software.FastMathBenchmark [samples] [rounds]
+public class FastMathBenchmark {
+    private static volatile double sink; // Defeats dead-code elimination
+
+    private interface Kernel {
+        double apply(double a, double b);
+    }
+
+    public static void main(String[] args) {
+        int samples = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 16;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        SplittableRandom random = new SplittableRandom(42);
+        double[] angles = new double[samples];
+        double[] xs = new double[samples];
+        double[] ys = new double[samples];
+        double[] temps = new double[samples];
+        for (int i = 0; i < samples; i++) {
+            angles[i] = (random.nextDouble() * 2 - 1) * 1e6; // Phase after long runs at high frequency
+            xs[i] = random.nextDouble() * 2 - 1;
+            ys[i] = random.nextDouble() * 2 - 1;
+            temps[i] = 273.15 + random.nextDouble() * 200; // Kelvin, as in the radiation terms
+        }
+        System.out.printf("%-14s %12s %12s %9s %12s%n", "kernel", "exact ns/op", "fast ns/op", "speedup", "max error");
+        report("sin", angles, angles, (a, b) -> Math.sin(a), (a, b) -> FastMath.sin(a), rounds, false);
+        report("cos", angles, angles, (a, b) -> Math.cos(a), (a, b) -> FastMath.cos(a), rounds, false);
+        report("atan2", ys, xs, Math::atan2, FastMath::atan2, rounds, false);
+        report("pow4", temps, temps, (a, b) -> Math.pow(a, 4), (a, b) -> FastMath.pow4(a), rounds, true);
+        reportOscillator("3-phase NCO", samples, rounds, 0);
+        reportOscillator("V/f ramp NCO", samples, rounds, 50);
+    }
+
+    private static void report(String name, double[] a, double[] b, Kernel exact, Kernel fast,
+                               int rounds, boolean relative) {
+        double maxError = 0;
+        for (int i = 0; i < a.length; i++) {
+            double e = exact.apply(a[i], b[i]);
+            double error = Math.abs(fast.apply(a[i], b[i]) - e);
+            maxError = Math.max(maxError, relative ? error / Math.abs(e) : error);
+        }
+        double exactNanos = time(a, b, exact, rounds);
+        double fastNanos = time(a, b, fast, rounds);
+        System.out.printf("%-14s %12.2f %12.2f %8.2fx %12.3e%s%n", name, exactNanos, fastNanos,
+                exactNanos / fastNanos, maxError, relative ? " rel" : "");
+    }
+
+    private static double time(double[] a, double[] b, Kernel kernel, int rounds) {
+        double acc = 0;
+        for (int r = 0; r < rounds / 4 + 1; r++) { // Warm-up
+            for (int i = 0; i < a.length; i++) acc += kernel.apply(a[i], b[i]);
+        }
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (int i = 0; i < a.length; i++) acc += kernel.apply(a[i], b[i]);
+        }
+        long elapsed = System.nanoTime() - start;
+        sink = acc;
+        return (double) elapsed / ((long) rounds * a.length);
+    }
+
+    /// Three-phase sin at a 100 µs step: three Math.sin calls vs one NCO rotation. The frequency is a
+    /// fixed 50 Hz, or with rampHz > 0 rises by rampHz over the run and enters the phase as
+    /// VfController does (2π f t), so the increment changes every step
+    private static void reportOscillator(String name, int samples, int rounds, double rampHz) {
+        PhaseOscillator oscillator = new PhaseOscillator();
+        double maxError = 0;
+        for (int i = 0; i < samples; i++) {
+            double theta = theta(i, samples, rampHz);
+            oscillator.advanceTo(theta);
+            maxError = Math.max(maxError, Math.abs(oscillator.sin() - Math.sin(theta)));
+            maxError = Math.max(maxError, Math.abs(oscillator.sinLag() - Math.sin(theta - 2 * Math.PI / 3)));
+            maxError = Math.max(maxError, Math.abs(oscillator.sinLead() - Math.sin(theta + 2 * Math.PI / 3)));
+        }
+        double acc = 0;
+        long exactElapsed = 0;
+        long fastElapsed = 0;
+        for (int pass = 0; pass < 2; pass++) { // First pass is warm-up
+            long start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (int i = 0; i < samples; i++) {
+                    double theta = theta(i, samples, rampHz);
+                    acc += Math.sin(theta) + Math.sin(theta - 2 * Math.PI / 3) + Math.sin(theta + 2 * Math.PI / 3);
+                }
+            }
+            exactElapsed = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                oscillator.reset();
+                for (int i = 0; i < samples; i++) {
+                    oscillator.advanceTo(theta(i, samples, rampHz));
+                    acc += oscillator.sin() + oscillator.sinLag() + oscillator.sinLead();
+                }
+            }
+            fastElapsed = System.nanoTime() - start;
+        }
+        sink = acc;
+        double ops = (double) rounds * samples;
+        System.out.printf("%-14s %12.2f %12.2f %8.2fx %12.3e%n", name, exactElapsed / ops,
+                fastElapsed / ops, (double) exactElapsed / fastElapsed, maxError);
+    }
+
+    private static double theta(int i, int samples, double rampHz) {
+        double frequency = rampHz > 0 ? rampHz * (i + 1) / samples : 50;
+        return 2 * Math.PI * frequency * i * Config.SIMULATION_TIME_STEP;
+    }
+}
@@ -0,0 +1,16 @@
+package inverter_drive.simulation.software;
+
+/// Fault effects and recovery
+public record FaultConfig(double overcurrentVoltageScale,
+                          double undervoltageVoltageScale,
+                          double igbtFailureDutyCycle, // Probability per step that a failed IGBT drops phase A
+                          double autoResetDelay) { // seconds of simulated time
+    public static final FaultConfig DEFAULT = new FaultConfig(Config.OVERCURRENT_VOLTAGE_SCALE,
+            Config.UNDERVOLTAGE_VOLTAGE_SCALE, Config.IGBT_FAILURE_DUTY_CYCLE, Config.FAULT_AUTO_RESET_DELAY);
+
+    public FaultConfig {
+        if (!(igbtFailureDutyCycle >= 0 && igbtFailureDutyCycle <= 1)) {
+            throw new IllegalArgumentException("IGBT failure duty cycle must be within [0, 1]");
+        }
+    }
+}
@@ -1,38 +1,73 @@
 package inverter_drive.simulation.software;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 public class FaultSimulator {
     private final InverterPowerStage inverter;
     private final SensorModel sensors;
+    private final SimulationClock clock;
     private String currentFault = "None";
     private double faultTime = 0.0;
+    private final RandomGenerator random;
+    private FaultConfig config;
 
-    public FaultSimulator(InverterPowerStage inverter, SensorModel sensors) {
+    public FaultSimulator(InverterPowerStage inverter, SensorModel sensors, SimulationClock clock) {
+        this(inverter, sensors, clock, new SplittableRandom());
+    }
+
+    public FaultSimulator(InverterPowerStage inverter, SensorModel sensors, SimulationClock clock,
+                          RandomGenerator random) {
+        this(inverter, sensors, clock, random, FaultConfig.DEFAULT);
+    }
+
+    public FaultSimulator(InverterPowerStage inverter, SensorModel sensors, SimulationClock clock,
+                          RandomGenerator random, FaultConfig config) {
         this.inverter = inverter;
         this.sensors = sensors;
+        this.clock = clock;
+        this.random = random;
+        this.config = config;
+    }
+
+    public void configure(FaultConfig config) {
+        this.config = config;
     }
 
     public double[] applyFaults(double[] phaseVoltages, boolean autoReset,
                                 double motorTemp, double inverterTemp,
                                 double maxTemp, String protectionMode) {
+        double[] modifiedVoltages = new double[3];
+        applyFaults(phaseVoltages, autoReset, motorTemp, inverterTemp, maxTemp, protectionMode, modifiedVoltages);
+        return modifiedVoltages;
+    }
+
+    /// Allocation-free variant; modifiedVoltages may be the same array as phaseVoltages
+    public void applyFaults(double[] phaseVoltages, boolean autoReset,
+                            double motorTemp, double inverterTemp,
+                            double maxTemp, String protectionMode, double[] modifiedVoltages) {
+        final FaultConfig config = this.config;
         if (motorTemp > maxTemp || inverterTemp > maxTemp) {
             if (protectionMode.equals("Shutdown")) {
                 currentFault = "Overheat";
-                return new double[]{0, 0, 0}; // Stop inverter
+                for (int i = 0; i < 3; i++) modifiedVoltages[i] = 0; // Stop inverter
+                return;
             } else if (protectionMode.equals("Warning") && !currentFault.equals("Overheat")) {
                 currentFault = "Overheat";
-                faultTime = System.currentTimeMillis();
+                faultTime = clock.getTime();
             }
         }
-        if (autoReset && !currentFault.equals("None") && (System.currentTimeMillis() - faultTime) > 2000) {
+        if (autoReset && !currentFault.equals("None") && (clock.getTime() - faultTime) > config.autoResetDelay()) {
             clearFault();
         }
-        double[] modifiedVoltages = phaseVoltages.clone();
+        if (modifiedVoltages != phaseVoltages) {
+            System.arraycopy(phaseVoltages, 0, modifiedVoltages, 0, 3);
+        }
         switch (currentFault) {
             case "Overcurrent":
-                for (int i = 0; i < 3; i++) modifiedVoltages[i] *= Config.OVERCURRENT_VOLTAGE_SCALE;
+                for (int i = 0; i < 3; i++) modifiedVoltages[i] *= config.overcurrentVoltageScale();
                 break;
             case "Undervoltage":
-                for (int i = 0; i < 3; i++) modifiedVoltages[i] *= Config.UNDERVOLTAGE_VOLTAGE_SCALE;
+                for (int i = 0; i < 3; i++) modifiedVoltages[i] *= config.undervoltageVoltageScale();
                 break;
             case "Phase Loss":
                 modifiedVoltages[0] = 0; // Loss of phase A
@@ -44,18 +79,17 @@ public class FaultSimulator {
                 break;
             case "IGBTFailure":
                 // Simulate intermittent failure on phase A
-                if (Math.random() < Config.IGBT_FAILURE_DUTY_CYCLE) {
+                if (random.nextDouble() < config.igbtFailureDutyCycle()) {
                     modifiedVoltages[0] = 0;
                 }
                 break;
         }
-        return modifiedVoltages;
     }
 
     public void injectFault(String faultType) {
         if (!faultType.equals("None")) {
             currentFault = faultType;
-            faultTime = System.currentTimeMillis();
+            faultTime = clock.getTime();
         }
     }
 
@@ -0,0 +1,63 @@
+package inverter_drive.simulation.software;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/// Chooses the inverter fidelity level over a run: the cheap base level by default, the detail level
+/// for holdTime after a fault or setpoint change and inside user-defined windows (start-up, a
+/// scheduled step, ...). The engine reports triggers and applies levelAt() before every step.
+public class FidelityPolicy {
+    private final String baseLevel;
+    private final String detailLevel;
+    private final double holdTime;
+    private final List<double[]> windows = new ArrayList<>();
+    private boolean onFault = true;
+    private boolean onSetpointChange = true;
+    private double detailUntil = Double.NEGATIVE_INFINITY;
+    private int triggerCount = 0;
+
+    /// e.g. new FidelityPolicy("Averaged", "Switched", 0.05)
+    public FidelityPolicy(String baseLevel, String detailLevel, double holdTime) {
+        this.baseLevel = baseLevel;
+        this.detailLevel = detailLevel;
+        this.holdTime = holdTime;
+    }
+
+    public FidelityPolicy setTriggers(boolean onFault, boolean onSetpointChange) {
+        this.onFault = onFault;
+        this.onSetpointChange = onSetpointChange;
+        return this;
+    }
+
+    /// Detail level throughout [start, end) in simulation seconds
+    public FidelityPolicy addWindow(double start, double end) {
+        windows.add(new double[]{start, end});
+        return this;
+    }
+
+    public void faultOccurred(double time) {
+        if (onFault) trigger(time);
+    }
+
+    public void setpointChanged(double time) {
+        if (onSetpointChange) trigger(time);
+    }
+
+    public void trigger(double time) {
+        detailUntil = Math.max(detailUntil, time + holdTime);
+        triggerCount++;
+    }
+
+    public String levelAt(double time) {
+        if (time < detailUntil) return detailLevel;
+        for (int i = 0; i < windows.size(); i++) {
+            double[] window = windows.get(i);
+            if (time >= window[0] && time < window[1]) return detailLevel;
+        }
+        return baseLevel;
+    }
+
+    public int getTriggerCount() {
+        return triggerCount;
+    }
+}
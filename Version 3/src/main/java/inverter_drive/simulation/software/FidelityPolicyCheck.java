@@ -0,0 +1,47 @@
+package inverter_drive.simulation.software;
+
+import java.util.function.Consumer;
+
+/// Verifies that each fault reaches the fidelity policy exactly once, whether injected directly,
+/// requested through the lock-free command or raised by the fault simulator itself.
+/// Run: java inverter_drive.simulation.software.FidelityPolicyCheck
+public class FidelityPolicyCheck {
+    public static void main(String[] args) {
+        boolean passed = check("injectFault", engine -> engine.injectFault("Phase Loss"));
+        passed &= check("requestFault", engine -> engine.requestFault("Phase Loss"));
+        passed &= checkNatural();
+        if (!passed) System.exit(1);
+    }
+
+    /// One fault before a short run, well before the default drive overheats
+    private static boolean check(String name, Consumer<SimulationEngine> fault) {
+        SimulationEngine engine = new SimulationEngine(1L, DriveConfig.DEFAULT);
+        FidelityPolicy policy = new FidelityPolicy("Averaged", "Switched", 0.01).setTriggers(true, false);
+        engine.setFidelityPolicy(policy);
+        fault.accept(engine);
+        engine.step(20);
+        return report(name, 1, policy.getTriggerCount());
+    }
+
+    /// Counts fault onsets seen step by step and compares them with the policy's triggers
+    private static boolean checkNatural() {
+        SimulationEngine engine = new SimulationEngine(1L, DriveConfig.DEFAULT);
+        FidelityPolicy policy = new FidelityPolicy("Averaged", "Switched", 0.01).setTriggers(true, false);
+        engine.setFidelityPolicy(policy);
+        String last = engine.getCurrentFault();
+        int onsets = 0;
+        for (int i = 0; i < 2000; i++) {
+            engine.step();
+            String fault = engine.getCurrentFault();
+            if (!fault.equals(last) && !fault.equals("None")) onsets++;
+            last = fault;
+        }
+        return report("simulated", onsets, policy.getTriggerCount());
+    }
+
+    private static boolean report(String name, int expected, int actual) {
+        boolean passed = expected == actual;
+        System.out.printf("%-12s faults %d, policy triggers %d %s%n", name, expected, actual, passed ? "PASS" : "FAIL");
+        return passed;
+    }
+}
@@ -0,0 +1,34 @@
+package inverter_drive.simulation.software;
+
+/// Shared bookkeeping and scratch buffers for the explicit fixed-step methods
+abstract class FixedStepIntegrator implements OdeIntegrator {
+    protected double[][] stages = new double[0][0];
+    protected double[] work = new double[0];
+    private long stepsTaken = 0;
+
+    protected void ensureCapacity(int n, int stageCount) {
+        if (work.length != n || stages.length != stageCount) {
+            stages = new double[stageCount][n];
+            work = new double[n];
+        }
+    }
+
+    protected void countStep() {
+        stepsTaken++;
+    }
+
+    @Override
+    public long getStepsTaken() {
+        return stepsTaken;
+    }
+
+    @Override
+    public long getStepsRejected() {
+        return 0;
+    }
+
+    @Override
+    public void resetStatistics() {
+        stepsTaken = 0;
+    }
+}
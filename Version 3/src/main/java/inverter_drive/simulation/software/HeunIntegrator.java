@@ -0,0 +1,26 @@
+package inverter_drive.simulation.software;
+
+/// Heun's method (explicit trapezoidal), second order
+public class HeunIntegrator extends FixedStepIntegrator {
+    @Override
+    public void integrate(OdeSystem system, double t, double[] y, double h) {
+        int n = system.dimension();
+        ensureCapacity(n, 2);
+        double[] k1 = stages[0];
+        double[] k2 = stages[1];
+        system.derivatives(t, y, k1);
+        for (int i = 0; i < n; i++) {
+            work[i] = y[i] + h * k1[i];
+        }
+        system.derivatives(t + h, work, k2);
+        for (int i = 0; i < n; i++) {
+            y[i] += 0.5 * h * (k1[i] + k2[i]);
+        }
+        countStep();
+    }
+
+    @Override
+    public String getName() {
+        return "Heun";
+    }
+}
@@ -16,11 +16,42 @@ public class InductionMotor {
     private double friction = 0.01;
     private double tempCoefficient = 0.005;
     private double couplingStiffness = 5000;
-    private double temperature = 25.0; // °C
+    private double temperature; // °C, starts at ambient
     private double fanSpeed = 0.5; // 0–1
     private double coolantFlow = 5.0; // L/min
     private double id = 0.0; // Direct-axis current
     private double iq = 0.0; // Quadrature-axis current
+    /// Integrated state: {speed, rotorFlux, temperature}
+    private final double[] state = new double[3];
+    private final Dynamics dynamics = new Dynamics();
+    private OdeIntegrator integrator = new EulerIntegrator();
+    private boolean fastMath = false; // FastMath.pow4 for the radiation term
+    /// Multi-rate accumulators: electrical-step averages handed to the slower subsystems
+    private double torqueIntegral = 0.0;
+    private double mechanicalTime = 0.0;
+    private double heatIntegral = 0.0;
+    private double thermalTime = 0.0;
+    /// The baseline coupling drag was stiffness × speed × step; the step is pinned to the configured
+    /// one so no right-hand side depends on the step an integrator or rate actually takes
+    private final double couplingStep;
+    /// Per-run configuration; the thermal code reads it into locals once per call
+    private ThermalConfig thermal;
+    private double ambient;
+
+    public InductionMotor() {
+        this(DriveConfig.DEFAULT);
+    }
+
+    public InductionMotor(DriveConfig config) {
+        configure(config);
+        temperature = ambient;
+        couplingStep = config.timeStep();
+    }
+
+    public void configure(DriveConfig config) {
+        this.thermal = config.motorThermal();
+        this.ambient = config.ambientTemperature();
+    }
 
     public void setParameters(double ratedVoltage, double ratedPower, int polePairs,
                               double resistance, double inductance, String loadType,
@@ -43,9 +74,21 @@ public class InductionMotor {
         this.coolantFlow = coolantFlow;
     }
 
+    public void setFastMath(boolean fastMath) {
+        this.fastMath = fastMath;
+    }
+
+    public void setIntegrator(OdeIntegrator integrator) {
+        this.integrator = integrator;
+    }
+
+    public OdeIntegrator getIntegrator() {
+        return integrator;
+    }
+
     public void updateState(double[] phaseVoltages, double[] phaseCurrents, String loadType, double timeStep) {
-        updateTemperature(phaseCurrents);
-        double effectiveResistance = resistance * (1 + tempCoefficient * (temperature - Config.AMBIENT_TEMPERATURE));
+        final double ambient = this.ambient;
+        double effectiveResistance = resistance * (1 + tempCoefficient * (temperature - ambient));
         double vq = (2.0 / 3.0) * (phaseVoltages[0] - 0.5 * (phaseVoltages[1] + phaseVoltages[2]));
         double vd = (1.0 / Math.sqrt(3)) * (phaseVoltages[1] - phaseVoltages[2]);
         double iq = (2.0 / 3.0) * (phaseCurrents[0] - 0.5 * (phaseCurrents[1] + phaseCurrents[2]));
@@ -54,7 +97,45 @@ public class InductionMotor {
         this.id = id;
         torque = 1.5 * polePairs * rotorFlux * iq;
         double slip = (ratedVoltage / (2 * Math.PI * 50.0) - speed / polePairs) / (ratedVoltage / (2 * Math.PI * 50.0));
+        /// Inputs are held constant over the step while speed, flux and temperature are integrated
+        dynamics.id = id;
+        dynamics.iq = iq;
+        dynamics.heatGeneration = (phaseCurrents[0] * phaseCurrents[0] +
+                phaseCurrents[1] * phaseCurrents[1] +
+                phaseCurrents[2] * phaseCurrents[2]) * resistance * thermal.thermalResistance();
+        dynamics.loadType = loadType.equals("Fan/Pump") ? 1 : loadType.equals("Inertia") ? 2 : 0;
+        state[0] = speed;
+        state[1] = rotorFlux;
+        state[2] = temperature;
+        integrator.integrate(dynamics, 0.0, state, timeStep);
+        speed = state[0];
+        rotorFlux = state[1];
+        temperature = state[2];
+        if (speed < 0) speed = 0;
+        if (temperature < ambient) temperature = ambient;
+    }
+
+    /// Multi-rate electrical update: dq currents, torque and rotor flux at the control rate.
+    /// Torque and copper losses are averaged for updateMechanical() and updateThermal().
+    public void updateElectrical(double[] phaseCurrents, double timeStep) {
+        iq = (2.0 / 3.0) * (phaseCurrents[0] - 0.5 * (phaseCurrents[1] + phaseCurrents[2]));
+        id = (1.0 / Math.sqrt(3)) * (phaseCurrents[1] - phaseCurrents[2]);
+        torque = 1.5 * polePairs * rotorFlux * iq;
         rotorFlux += timeStep * (-rotorFlux / inductance + id);
+        torqueIntegral += torque * timeStep;
+        mechanicalTime += timeStep;
+        double iSquaredR = (phaseCurrents[0] * phaseCurrents[0] +
+                phaseCurrents[1] * phaseCurrents[1] +
+                phaseCurrents[2] * phaseCurrents[2]) * resistance;
+        heatIntegral += iSquaredR * thermal.thermalResistance() * timeStep;
+        thermalTime += timeStep;
+    }
+
+    /// Multi-rate mechanical update with the torque averaged since the previous call
+    public void updateMechanical(String loadType, double elapsed) {
+        double meanTorque = mechanicalTime > 0 ? torqueIntegral / mechanicalTime : torque;
+        torqueIntegral = 0.0;
+        mechanicalTime = 0.0;
         double loadTorque = 10.0;
         if (loadType.equals("Fan/Pump")) {
             loadTorque = 0.1 * speed * speed;
@@ -62,31 +143,67 @@ public class InductionMotor {
             loadTorque = 0.0;
         }
         double totalInertia = loadInertia + shaftInertia;
-        double couplingEffect = couplingStiffness * speed * timeStep;
-        double acceleration = (torque - loadTorque - (damping + friction) * speed - couplingEffect) / totalInertia;
-        speed += acceleration * timeStep;
+        double couplingEffect = couplingStiffness * speed * couplingStep;
+        double acceleration = (meanTorque - loadTorque - (damping + friction) * speed - couplingEffect) / totalInertia;
+        speed += acceleration * elapsed;
         if (speed < 0) speed = 0;
     }
 
-    private void updateTemperature(double[] phaseCurrents) {
-        /// Heat generation from I²R losses
-        double iSquaredR = (phaseCurrents[0] * phaseCurrents[0] +
-                phaseCurrents[1] * phaseCurrents[1] +
-                phaseCurrents[2] * phaseCurrents[2]) * resistance;
-        double heatGeneration = iSquaredR * Config.MOTOR_THERMAL_RESISTANCE;
-        /// Convection: Q_conv = h * A * (T - T_amb)
-        double h = Config.MOTOR_CONVECTION_BASE + Config.MOTOR_CONVECTION_FAN_COEFF * fanSpeed
-                + Config.MOTOR_CONVECTION_COOLANT_COEFF * coolantFlow;
-        double T_K = temperature + 273.15; // Convert to Kelvin
-        double T_amb_K = Config.AMBIENT_TEMPERATURE + 273.15;
-        double Q_conv = h * Config.MOTOR_SURFACE_AREA * (temperature - Config.AMBIENT_TEMPERATURE);
-        /// Radiation: Q_rad = ε * σ * A * (T^4 - T_amb^4)
-        double Q_rad = Config.MOTOR_EMISSIVITY * Config.STEFAN_BOLTZMANN * Config.MOTOR_SURFACE_AREA
-                * (Math.pow(T_K, 4) - Math.pow(T_amb_K, 4));
-        /// Total heat balance: dT/dt = (Q_gen - Q_conv - Q_rad) / C
-        double coolingEffect = (Q_conv + Q_rad) / Config.MOTOR_THERMAL_CAPACITANCE;
-        temperature += (heatGeneration - coolingEffect) * Config.SIMULATION_TIME_STEP;
-        if (temperature < Config.AMBIENT_TEMPERATURE) temperature = Config.AMBIENT_TEMPERATURE;
+    /// Multi-rate thermal update with exact discretization of the convection term
+    public void updateThermal(double elapsed) {
+        double heatGeneration = thermalTime > 0 ? heatIntegral / thermalTime : 0.0;
+        heatIntegral = 0.0;
+        thermalTime = 0.0;
+        final ThermalConfig thermal = this.thermal;
+        double h = thermal.convection(fanSpeed, coolantFlow);
+        temperature = ThermalStep.advance(temperature, ambient, heatGeneration,
+                h * thermal.surfaceArea() / thermal.thermalCapacitance(),
+                thermal.emissivity() * Config.STEFAN_BOLTZMANN * thermal.surfaceArea() / thermal.thermalCapacitance(),
+                elapsed);
+    }
+
+    /// Mechanical, flux and thermal dynamics for y = {speed, rotorFlux, temperature}
+    private class Dynamics implements OdeSystem {
+        private double id;
+        private double iq;
+        private double heatGeneration; // I²R losses times thermal resistance
+        private int loadType;
+
+        @Override
+        public int dimension() {
+            return 3;
+        }
+
+        @Override
+        public void derivatives(double t, double[] y, double[] dydt) {
+            double speed = y[0];
+            double rotorFlux = y[1];
+            double temperature = y[2];
+            double torque = 1.5 * polePairs * rotorFlux * iq;
+            double loadTorque = 10.0;
+            if (loadType == 1) {
+                loadTorque = 0.1 * speed * speed;
+            } else if (loadType == 2) {
+                loadTorque = 0.0;
+            }
+            double totalInertia = loadInertia + shaftInertia;
+            double couplingEffect = couplingStiffness * speed * couplingStep;
+            dydt[0] = (torque - loadTorque - (damping + friction) * speed - couplingEffect) / totalInertia;
+            dydt[1] = -rotorFlux / inductance + id;
+            /// Convection: Q_conv = h * A * (T - T_amb)
+            final ThermalConfig thermal = InductionMotor.this.thermal;
+            final double ambient = InductionMotor.this.ambient;
+            double h = thermal.convection(fanSpeed, coolantFlow);
+            double T_K = temperature + 273.15; // Convert to Kelvin
+            double T_amb_K = ambient + 273.15;
+            double Q_conv = h * thermal.surfaceArea() * (temperature - ambient);
+            /// Radiation: Q_rad = ε * σ * A * (T^4 - T_amb^4)
+            double Q_rad = thermal.emissivity() * Config.STEFAN_BOLTZMANN * thermal.surfaceArea()
+                    * (fastMath ? FastMath.pow4(T_K) - FastMath.pow4(T_amb_K) : Math.pow(T_K, 4) - Math.pow(T_amb_K, 4));
+            /// Total heat balance: dT/dt = (Q_gen - Q_conv - Q_rad) / C
+            double coolingEffect = (Q_conv + Q_rad) / thermal.thermalCapacitance();
+            dydt[2] = heatGeneration - coolingEffect;
+        }
     }
 
     public double getSpeed() {
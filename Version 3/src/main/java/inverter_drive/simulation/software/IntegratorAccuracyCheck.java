@@ -0,0 +1,72 @@
+package inverter_drive.simulation.software;
+
+/// Compares the motor integrators by accuracy against step count. Each method integrates the same
+/// motor ODE (held phase currents, constant load) at several step sizes; errors are measured at
+/// every millisecond against RK4 at 1 µs; steps taken and rejected are reported per run. Passes when RK4 at 10x the default step is at least as
+/// accurate as Euler at the default step.
+/// Run: java inverter_drive.simulation.software.IntegratorAccuracyCheck [duration]
+public class IntegratorAccuracyCheck {
+    private static final double[] CURRENTS = {100.0, 0.0, -100.0};
+    private static final double SAMPLE_PERIOD = 1e-3;
+
+    public static void main(String[] args) {
+        double duration = args.length > 0 ? Double.parseDouble(args[0]) : 1.0;
+        double[][] reference = run("RK4", 1e-6, duration, new long[2]);
+        double baseStep = Config.SIMULATION_TIME_STEP;
+        double[] steps = {baseStep, 2 * baseStep, 5 * baseStep, 10 * baseStep}; // Divide SAMPLE_PERIOD
+        System.out.printf("%-10s %10s %8s %8s %12s %12s %12s%n", "method", "step (s)", "steps", "rejected",
+                "speed err", "flux err", "temp err");
+        double eulerError = Double.NaN;
+        double rk4Error = Double.NaN;
+        for (String method : new String[]{"Euler", "Heun", "RK4", "RK45", "Rosenbrock"}) {
+            for (double step : steps) {
+                long[] counts = new long[2];
+                double[][] result = run(method, step, duration, counts);
+                double[] errors = errors(reference, result);
+                System.out.printf("%-10s %10.1e %8d %8d %12.3e %12.3e %12.3e%n", method, step,
+                        counts[0], counts[1], errors[0], errors[1], errors[2]);
+                double worst = Math.max(errors[0], Math.max(errors[1], errors[2]));
+                if (method.equals("Euler") && step == baseStep) eulerError = worst;
+                if (method.equals("RK4") && step == 10 * baseStep) rk4Error = worst;
+            }
+        }
+        boolean passed = rk4Error <= eulerError;
+        System.out.printf("RK4 at %.0e (%d steps): %.3e vs Euler at %.0e (%d steps): %.3e %s%n",
+                10 * baseStep, Math.round(duration / (10 * baseStep)), rk4Error,
+                baseStep, Math.round(duration / baseStep), eulerError, passed ? "PASS" : "FAIL");
+        if (!passed) System.exit(1);
+    }
+
+    /// Speed, flux and temperature at every SAMPLE_PERIOD, as [sample][variable]; counts receives the
+    /// integrator's steps taken (substeps of adaptive methods included) and rejected
+    private static double[][] run(String method, double step, double duration, long[] counts) {
+        InductionMotor motor = new InductionMotor(DriveConfig.DEFAULT);
+        motor.setIntegrator(OdeIntegrator.create(method));
+        double[] voltages = new double[3];
+        int samples = (int) Math.round(duration / SAMPLE_PERIOD);
+        int perSample = (int) Math.round(SAMPLE_PERIOD / step);
+        double[][] trace = new double[samples][];
+        for (int s = 0; s < samples; s++) {
+            for (int i = 0; i < perSample; i++) motor.updateState(voltages, CURRENTS, "Constant", step);
+            trace[s] = new double[]{motor.getSpeed(), motor.getRotorFlux(), motor.getTemperature()};
+        }
+        counts[0] = motor.getIntegrator().getStepsTaken();
+        counts[1] = motor.getIntegrator().getStepsRejected();
+        return trace;
+    }
+
+    /// Maximum error over the run, relative to each variable's largest reference magnitude
+    private static double[] errors(double[][] reference, double[][] result) {
+        double[] scale = new double[3];
+        double[] error = new double[3];
+        for (double[] sample : reference) {
+            for (int v = 0; v < 3; v++) scale[v] = Math.max(scale[v], Math.abs(sample[v]));
+        }
+        for (int s = 0; s < reference.length; s++) {
+            for (int v = 0; v < 3; v++) {
+                error[v] = Math.max(error[v], Math.abs(result[s][v] - reference[s][v]) / scale[v]);
+            }
+        }
+        return error;
+    }
+}
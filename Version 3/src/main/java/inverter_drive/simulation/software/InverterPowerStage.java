@@ -1,18 +1,43 @@
 package inverter_drive.simulation.software;
 
 public class InverterPowerStage {
+    private final SimulationClock clock;
     private double dcLinkVoltage;
     private double pwmFrequency;
     private double deadTime;
     private double modulationIndex;
     private boolean harmonicInjection;
     private boolean overmodulation;
-    private double temperature = 25.0; // °C
+    private double temperature; // °C, starts at ambient
     private double fanSpeed = 0.5; // 0–1
     private double coolantFlow = 5.0; // L/min
+    private double timeStep; // Thermal integration step
+    /// Per-run configuration; the thermal code reads it into locals once per call
+    private ThermalConfig thermal;
+    private double ambient;
+    private boolean thermalDecoupled = false; // Thermal state advanced by updateThermal() instead
+    private boolean fastMath = false; // FastMath kernels instead of Math
+    private String svpwmMethod = "Sector"; // "Sector" (angle and dwell times) or "Carrier" (min/max injection)
+    /// Fidelity: "Averaged" (static load), "Cycle-Averaged" (per-carrier-cycle means, RL load dynamics)
+    /// or "Switched" (gate edges and dead time, see SwitchingPwmModel)
+    private String fidelity = "Averaged";
+    private final SwitchingPwmModel switchingModel = new SwitchingPwmModel();
+    private final double[] duties = new double[3];
+    private final double[] lastCurrents = new double[3]; // Load currents of the last step, any fidelity
 
-    public InverterPowerStage(double dcLinkVoltage, double pwmFrequency, double deadTime,
+    public InverterPowerStage(SimulationClock clock, double dcLinkVoltage, double pwmFrequency, double deadTime,
                               double modulationIndex, boolean harmonicInjection, boolean overmodulation) {
+        this(clock, DriveConfig.DEFAULT, dcLinkVoltage, pwmFrequency, deadTime, modulationIndex,
+                harmonicInjection, overmodulation);
+    }
+
+    public InverterPowerStage(SimulationClock clock, DriveConfig config, double dcLinkVoltage, double pwmFrequency,
+                              double deadTime, double modulationIndex, boolean harmonicInjection,
+                              boolean overmodulation) {
+        this.clock = clock;
+        configure(config);
+        this.temperature = ambient;
+        this.timeStep = config.timeStep();
         this.dcLinkVoltage = dcLinkVoltage;
         this.pwmFrequency = pwmFrequency;
         this.deadTime = deadTime;
@@ -23,62 +48,27 @@ public class InverterPowerStage {
 
     public double[] generatePhaseVoltages(double[] pwmSignals, String pwmType) {
         double[] phaseVoltages = new double[3];
+        generatePhaseVoltages(pwmSignals, pwmType, phaseVoltages);
+        return phaseVoltages;
+    }
+
+    /// Allocation-free variant; writes the three phase voltages into phaseVoltages
+    public void generatePhaseVoltages(double[] pwmSignals, String pwmType, double[] phaseVoltages) {
         double deadTimeFactor = 1.0 - deadTime * pwmFrequency;
         double modFactor = modulationIndex * (overmodulation ? 1.15 : 1.0);
         if (pwmType.equals("SVPWM")) { /// Space Vector PWM
-            double[] vRef = new double[3];
-            for (int i = 0; i < 3; i++) {
-                vRef[i] = 2.0 * pwmSignals[i] - 1.0;
-            }
-            double vAlpha = (2.0 / 3.0) * (vRef[0] - 0.5 * (vRef[1] + vRef[2]));
-            double vBeta = (1.0 / Math.sqrt(3)) * (vRef[1] - vRef[2]);
-            double vMag = Math.sqrt(vAlpha * vAlpha + vBeta * vBeta);
-            double theta = Math.atan2(vBeta, vAlpha);
-            int sector = (int) Math.floor(theta / (Math.PI / 3.0)) % 6;
-            if (sector < 0) sector += 6;
-            double sectorAngle = theta - sector * Math.PI / 3.0;
-            double m = vMag * Math.sqrt(3) / dcLinkVoltage;
-            double T = 1.0 / pwmFrequency;
-            double T1 = m * T * Math.sin(Math.PI / 3.0 - sectorAngle);
-            double T2 = m * T * Math.sin(sectorAngle);
-            double T0 = T - T1 - T2;
-            double[] duties = new double[3];
-            switch (sector) {
-                case 0:
-                    duties[0] = (T1 + T2 + T0 / 2) / T;
-                    duties[1] = (T2 + T0 / 2) / T;
-                    duties[2] = T0 / (2 * T);
-                    break;
-                case 1:
-                    duties[0] = (T1 + T0 / 2) / T;
-                    duties[1] = (T1 + T2 + T0 / 2) / T;
-                    duties[2] = T0 / (2 * T);
-                    break;
-                case 2:
-                    duties[0] = T0 / (2 * T);
-                    duties[1] = (T1 + T2 + T0 / 2) / T;
-                    duties[2] = (T2 + T0 / 2) / T;
-                    break;
-                case 3:
-                    duties[0] = T0 / (2 * T);
-                    duties[1] = (T1 + T0 / 2) / T;
-                    duties[2] = (T1 + T2 + T0 / 2) / T;
-                    break;
-                case 4:
-                    duties[0] = (T2 + T0 / 2) / T;
-                    duties[1] = T0 / (2 * T);
-                    duties[2] = (T1 + T2 + T0 / 2) / T;
-                    break;
-                case 5:
-                    duties[0] = (T1 + T2 + T0 / 2) / T;
-                    duties[1] = T0 / (2 * T);
-                    duties[2] = (T1 + T0 / 2) / T;
-                    break;
+            /// Duties are staged in the output buffer and scaled in place below
+            double[] duties = phaseVoltages;
+            if (svpwmMethod.equals("Carrier")) {
+                SvpwmKernel.carrierDuties(pwmSignals[0], pwmSignals[1], pwmSignals[2], dcLinkVoltage, duties);
+            } else {
+                SvpwmKernel.sectorDuties(pwmSignals[0], pwmSignals[1], pwmSignals[2], dcLinkVoltage,
+                        pwmFrequency, fastMath, duties);
             }
             for (int i = 0; i < 3; i++) {
                 double signal = duties[i];
                 if (harmonicInjection) {
-                    signal += 0.1 * Math.sin(3 * Math.PI * pwmFrequency * System.currentTimeMillis() / 1000.0);
+                    signal += 0.1 * harmonicSin();
                 }
                 phaseVoltages[i] = signal * dcLinkVoltage * deadTimeFactor * modFactor;
             }
@@ -86,33 +76,99 @@ public class InverterPowerStage {
             for (int i = 0; i < 3; i++) {
                 double signal = pwmSignals[i];
                 if (harmonicInjection) {
-                    signal += 0.1 * Math.sin(3 * Math.PI * pwmFrequency * System.currentTimeMillis() / 1000.0);
+                    signal += 0.1 * harmonicSin();
                 }
                 phaseVoltages[i] = signal * dcLinkVoltage * deadTimeFactor * modFactor;
             }
         }
 
-        updateTemperature(phaseVoltages);
-        return phaseVoltages;
+        if (!thermalDecoupled) {
+            updateTemperature(phaseVoltages);
+        }
+    }
+
+    /// Multi-rate thermal update with exact discretization of the convection term
+    public void updateThermal(double elapsed) {
+        double switchingLosses = pwmFrequency * 0.0001 * dcLinkVoltage;
+        final ThermalConfig thermal = this.thermal;
+        double h = thermal.convection(fanSpeed, coolantFlow);
+        temperature = ThermalStep.advance(temperature, ambient,
+                switchingLosses * thermal.thermalResistance(),
+                h * thermal.surfaceArea() / thermal.thermalCapacitance(),
+                thermal.emissivity() * Config.STEFAN_BOLTZMANN * thermal.surfaceArea() / thermal.thermalCapacitance(),
+                elapsed);
+    }
+
+    private double harmonicSin() {
+        double x = 3 * Math.PI * pwmFrequency * clock.getTime();
+        return fastMath ? FastMath.sin(x) : Math.sin(x);
+    }
+
+    /// Applies the post-fault voltage commands to the motor windings at the active fidelity level.
+    /// phaseVoltages is updated in place with the voltages actually applied; currents receives the
+    /// true load currents (before the sensor path).
+    public void driveLoad(double[] phaseVoltages, double resistance, double inductance, double timeStep,
+                          double[] currents) {
+        if (fidelity.equals("Averaged")) {
+            for (int i = 0; i < 3; i++) {
+                currents[i] = phaseVoltages[i] / (resistance + inductance * 0.1);
+            }
+        } else {
+            /// Commands back to duties; the dynamic models produce the dead-time loss themselves
+            double scale = 1.0 / (dcLinkVoltage * getDeadTimeFactor());
+            for (int i = 0; i < 3; i++) duties[i] = phaseVoltages[i] * scale;
+            switchingModel.setLoad(resistance + inductance * 0.1, inductance);
+            if (fidelity.equals("Switched")) {
+                switchingModel.advance(duties, dcLinkVoltage, pwmFrequency, deadTime, timeStep, phaseVoltages, currents);
+            } else {
+                switchingModel.advanceCycleAveraged(duties, dcLinkVoltage, pwmFrequency, deadTime, timeStep,
+                        phaseVoltages, currents);
+            }
+        }
+        System.arraycopy(currents, 0, lastCurrents, 0, 3);
+    }
+
+    /// Changes the fidelity level. Entering a dynamic level from "Averaged" seeds the RL load with the
+    /// last averaged currents at the current time; the two dynamic levels share one load state.
+    public void setFidelity(String fidelity) {
+        if (fidelity.equals(this.fidelity)) return;
+        if (this.fidelity.equals("Averaged")) {
+            switchingModel.resync(clock.getTime(), lastCurrents);
+        }
+        this.fidelity = fidelity;
+    }
+
+    public String getFidelity() {
+        return fidelity;
+    }
+
+    public SwitchingPwmModel getSwitchingModel() {
+        return switchingModel;
     }
 
     private void updateTemperature(double[] phaseVoltages) {
         /// Heat generation from switching losses
         double switchingLosses = pwmFrequency * 0.0001 * dcLinkVoltage;
-        double heatGeneration = switchingLosses * Config.INVERTER_THERMAL_RESISTANCE;
+        final ThermalConfig thermal = this.thermal;
+        final double ambient = this.ambient;
+        double heatGeneration = switchingLosses * thermal.thermalResistance();
         /// Convection: Q_conv = h * A * (T - T_amb)
-        double h = Config.INVERTER_CONVECTION_BASE + Config.INVERTER_CONVECTION_FAN_COEFF * fanSpeed
-                + Config.INVERTER_CONVECTION_COOLANT_COEFF * coolantFlow;
+        double h = thermal.convection(fanSpeed, coolantFlow);
         double T_K = temperature + 273.15;
-        double T_amb_K = Config.AMBIENT_TEMPERATURE + 273.15;
-        double Q_conv = h * Config.INVERTER_SURFACE_AREA * (temperature - Config.AMBIENT_TEMPERATURE);
+        double T_amb_K = ambient + 273.15;
+        double Q_conv = h * thermal.surfaceArea() * (temperature - ambient);
         /// Radiation: Q_rad = ε * σ * A * (T^4 - T_amb^4)
-        double Q_rad = Config.INVERTER_EMISSIVITY * Config.STEFAN_BOLTZMANN * Config.INVERTER_SURFACE_AREA
-                * (Math.pow(T_K, 4) - Math.pow(T_amb_K, 4));
+        double Q_rad = thermal.emissivity() * Config.STEFAN_BOLTZMANN * thermal.surfaceArea()
+                * (fastMath ? FastMath.pow4(T_K) - FastMath.pow4(T_amb_K) : Math.pow(T_K, 4) - Math.pow(T_amb_K, 4));
         /// Total heat balance: dT/dt = (Q_gen - Q_conv - Q_rad) / C
-        double coolingEffect = (Q_conv + Q_rad) / Config.INVERTER_THERMAL_CAPACITANCE;
-        temperature += (heatGeneration - coolingEffect) * Config.SIMULATION_TIME_STEP;
-        if (temperature < Config.AMBIENT_TEMPERATURE) temperature = Config.AMBIENT_TEMPERATURE;
+        double coolingEffect = (Q_conv + Q_rad) / thermal.thermalCapacitance();
+        temperature += (heatGeneration - coolingEffect) * timeStep;
+        if (temperature < ambient) temperature = ambient;
+    }
+
+    public void configure(DriveConfig config) {
+        this.thermal = config.inverterThermal();
+        this.ambient = config.ambientTemperature();
     }
 
     public void setDcLinkVoltage(double voltage) {
@@ -139,6 +195,22 @@ public class InverterPowerStage {
         this.overmodulation = enabled;
     }
 
+    public void setTimeStep(double timeStep) {
+        this.timeStep = timeStep;
+    }
+
+    public void setThermalDecoupled(boolean decoupled) {
+        this.thermalDecoupled = decoupled;
+    }
+
+    public void setFastMath(boolean fastMath) {
+        this.fastMath = fastMath;
+    }
+
+    public void setSvpwmMethod(String svpwmMethod) {
+        this.svpwmMethod = svpwmMethod;
+    }
+
     public void setCooling(double fanSpeed, double coolantFlow) {
         this.fanSpeed = fanSpeed;
         this.coolantFlow = coolantFlow;
@@ -148,6 +220,19 @@ public class InverterPowerStage {
         return dcLinkVoltage;
     }
 
+    public double getPwmFrequency() {
+        return pwmFrequency;
+    }
+
+    public double getDeadTime() {
+        return deadTime;
+    }
+
+    /// Averaged-model voltage loss from dead time; the switching model reproduces it edge by edge instead
+    public double getDeadTimeFactor() {
+        return 1.0 - deadTime * pwmFrequency;
+    }
+
     public double getTemperature() {
         return temperature;
     }
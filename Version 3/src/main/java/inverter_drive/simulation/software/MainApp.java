@@ -3,6 +3,7 @@ package inverter_drive.simulation.software;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.scene.Scene;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.VBox;
@@ -13,21 +14,17 @@ import javafx.scene.layout.Pane;
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
 import javafx.geometry.Insets;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
 
 public class MainApp extends Application {
-    private InverterPowerStage inverter;
-    private VfController controller;
-    private InductionMotor motor;
-    private SensorModel sensors;
-    private FaultSimulator faultSimulator;
+    private SimulationEngine engine;
     private DataLogger dataLogger;
+    private TelemetryBus telemetry;
     private WaveformVisualizer visualizer;
-    private double simulationTime = 0.0;
-    private boolean isRunning = false;
-    private ScheduledExecutorService simulationExecutor;
+    private UiBridge uiBridge;
     private Text speedDisplay;
     private Text torqueDisplay;
     private Text faultDisplay;
@@ -37,6 +34,10 @@ public class MainApp extends Application {
     private Slider speedRefSlider;
     private Slider accelRateSlider;
     private ComboBox<String> controlModeCombo;
+    private ComboBox<String> pacingCombo;
+    private Slider timeScaleSlider;
+    private Text realTimeFactorDisplay;
+    private Text bridgeStatsDisplay;
     private ToggleButton directionToggle;
     private ToggleButton enableToggle;
     private ComboBox<String> faultTypeCombo;
@@ -75,16 +76,36 @@ public class MainApp extends Application {
     private String lastControlMode = "";
     private String lastPwmType = "";
     private String lastFaultType = "";
+    private ReplaySource replaySource;
+    private DataLogger replayLogger;
+    private UiBridge replayBridge;
+    private Label replayFileLabel;
+    private ComboBox<String> replaySpeedCombo;
+    private ToggleButton replayPauseToggle;
+    private Slider replayPositionSlider;
+    private boolean updatingReplayPosition = false;
 
     @Override
     public void start(Stage primaryStage) {
-        inverter = new InverterPowerStage(400.0, 10000, 1e-6, 0.8, false, false);
-        motor = new InductionMotor();
-        controller = new VfController(motor);
-        sensors = new SensorModel();
-        faultSimulator = new FaultSimulator(inverter, sensors);
+        engine = new SimulationEngine();
         dataLogger = new DataLogger();
         visualizer = new WaveformVisualizer();
+        telemetry = new TelemetryBus(1 << 16);
+        engine.setTelemetryBus(telemetry);
+        if (Config.FULL_RATE_LOGGING) {
+            dataLogger.attach(telemetry);
+            try {
+                dataLogger.attachColumnar(telemetry, Path.of("simulation_data.ivlog"));
+            } catch (IOException e) {
+                showError("File Error", "Failed to create binary log: " + e.getMessage());
+            }
+        }
+        try {
+            dataLogger.attachReduced(telemetry, Path.of("simulation_data.ivrlog"),
+                    ReducerSpec.envelopeDefaults(Config.REDUCED_LOG_WINDOW));
+        } catch (IOException e) {
+            showError("File Error", "Failed to create reduced log: " + e.getMessage());
+        }
         BorderPane root = new BorderPane();
         root.setStyle("-fx-background-color: #000000;");
         VBox controlPanel = new VBox(5);
@@ -139,8 +160,22 @@ public class MainApp extends Application {
         autoResetToggle = new ToggleButton("Auto");
         autoResetToggle.setStyle("-fx-background-color: #DC143C; -fx-text-fill: #ffffff; -fx-padding: 3 8; -fx-font-size: 10;");
         autoResetToggle.setOnAction(e -> autoResetToggle.setText(autoResetToggle.isSelected() ? "Auto On" : "Auto"));
-        HBox buttonBox = new HBox(5, directionToggle, enableToggle, faultBtn, faultClearBtn, autoResetToggle);
+        Button captureBtn = new Button("Capture");
+        captureBtn.setStyle(buttonStyle);
+        captureBtn.setOnMouseEntered(e -> captureBtn.setStyle(buttonStyle + buttonHoverStyle));
+        captureBtn.setOnMouseExited(e -> captureBtn.setStyle(buttonStyle));
+        captureBtn.setOnAction(e -> {
+            if (dataLogger.getCaptureRecorder() != null) dataLogger.getCaptureRecorder().trigger("Manual");
+        });
+        HBox buttonBox = new HBox(5, directionToggle, enableToggle, faultBtn, faultClearBtn, autoResetToggle, captureBtn);
         controlGrid.add(buttonBox, 0, 9, 3, 1);
+        pacingCombo = new ComboBox<>();
+        pacingCombo.getItems().addAll("Max Speed", "Real-Time", "Scaled");
+        pacingCombo.setValue("Real-Time");
+        pacingCombo.setStyle("-fx-background-color: #FFFFFF; -fx-text-fill: #ffffff; -fx-pref-width: 100;");
+        controlGrid.add(new Label("Pacing:"), 0, 10);
+        controlGrid.add(pacingCombo, 1, 10);
+        timeScaleSlider = createSlider("Time Scale (×)", 0.01, 100, 1, controlGrid, 11);
         controlTab.setContent(controlGrid);
         Tab motorTab = new Tab("Motor/Load");
         motorTab.setClosable(false);
@@ -210,7 +245,41 @@ public class MainApp extends Application {
         thermalGrid.add(new Label("Protection Mode:"), 0, 7);
         thermalGrid.add(thermalProtectionCombo, 1, 7);
         thermalTab.setContent(thermalGrid);
-        tabPane.getTabs().addAll(controlTab, motorTab, pwmTab, thermalTab);
+        attachCapture(dataLogger, telemetry, Path.of("captures"));
+        maxTempInput.textProperty().addListener((obs, old, newVal) -> {
+            updateCaptureLimits(dataLogger);
+            updateCaptureLimits(replayLogger);
+        });
+        Tab replayTab = new Tab("Replay");
+        replayTab.setClosable(false);
+        GridPane replayGrid = new GridPane();
+        replayGrid.setHgap(5);
+        replayGrid.setVgap(5);
+        replayGrid.setPadding(new Insets(5));
+        Button openLogBtn = new Button("Open Log...");
+        openLogBtn.setStyle(buttonStyle);
+        openLogBtn.setOnMouseEntered(e -> openLogBtn.setStyle(buttonStyle + buttonHoverStyle));
+        openLogBtn.setOnMouseExited(e -> openLogBtn.setStyle(buttonStyle));
+        Button closeLogBtn = new Button("Close");
+        closeLogBtn.setStyle(buttonStyle);
+        closeLogBtn.setOnMouseEntered(e -> closeLogBtn.setStyle(buttonStyle + buttonHoverStyle));
+        closeLogBtn.setOnMouseExited(e -> closeLogBtn.setStyle(buttonStyle));
+        replayPauseToggle = new ToggleButton("Pause");
+        replayPauseToggle.setStyle("-fx-background-color: #DC143C; -fx-text-fill: #ffffff; -fx-padding: 3 8; -fx-font-size: 10;");
+        HBox replayButtonBox = new HBox(5, openLogBtn, replayPauseToggle, closeLogBtn);
+        replayGrid.add(replayButtonBox, 0, 0, 3, 1);
+        replayFileLabel = new Label("No log open");
+        replayFileLabel.setStyle("-fx-text-fill: #ffffff; -fx-font-size: 10;");
+        replayGrid.add(replayFileLabel, 0, 1, 3, 1);
+        replaySpeedCombo = new ComboBox<>();
+        replaySpeedCombo.getItems().addAll("1×", "10×", "100×", "1000×", "Max");
+        replaySpeedCombo.setValue("1×");
+        replaySpeedCombo.setStyle("-fx-background-color: #FFFFFF; -fx-text-fill: #ffffff; -fx-pref-width: 100;");
+        replayGrid.add(new Label("Speed:"), 0, 2);
+        replayGrid.add(replaySpeedCombo, 1, 2);
+        replayPositionSlider = createSlider("Position (%)", 0, 100, 0, replayGrid, 3);
+        replayTab.setContent(replayGrid);
+        tabPane.getTabs().addAll(controlTab, motorTab, pwmTab, thermalTab, replayTab);
         Pane displayPane = new Pane();
         displayPane.setStyle("-fx-background-color: #111111; -fx-border-color: #555555; -fx-border-width: 2; -fx-padding: 8;");
         speedDisplay = new Text(8, 16, "Speed: 0.0 rad/s");
@@ -218,11 +287,13 @@ public class MainApp extends Application {
         faultDisplay = new Text(8, 48, "Fault: None");
         motorTempDisplay = new Text(8, 64, "Motor Temp: 25.0 °C");
         inverterTempDisplay = new Text(8, 80, "Inv Temp: 25.0 °C");
-        for (Text text : new Text[]{speedDisplay, torqueDisplay, faultDisplay, motorTempDisplay, inverterTempDisplay}) {
+        realTimeFactorDisplay = new Text(8, 96, "RTF: 0.00×");
+        bridgeStatsDisplay = new Text(8, 112, "UI: queue 0, dropped 0, lag 0.0 ms");
+        for (Text text : new Text[]{speedDisplay, torqueDisplay, faultDisplay, motorTempDisplay, inverterTempDisplay, realTimeFactorDisplay, bridgeStatsDisplay}) {
             text.setFont(Font.font("Courier New", 12));
             text.setFill(javafx.scene.paint.Color.WHITE);
         }
-        displayPane.getChildren().addAll(speedDisplay, torqueDisplay, faultDisplay, motorTempDisplay, inverterTempDisplay);
+        displayPane.getChildren().addAll(speedDisplay, torqueDisplay, faultDisplay, motorTempDisplay, inverterTempDisplay, realTimeFactorDisplay, bridgeStatsDisplay);
         controlPanel.getChildren().addAll(title, tabPane, displayPane);
         VBox waveformArea = new VBox(5);
         waveformArea.setStyle("-fx-padding: 10;");
@@ -231,37 +302,74 @@ public class MainApp extends Application {
         waveformArea.getChildren().addAll(waveformLabel, visualizer.getCanvas());
         root.setLeft(controlPanel);
         root.setCenter(waveformArea);
-        simulationExecutor = Executors.newScheduledThreadPool(1);
+        uiBridge = new UiBridge(engine, this::render, bridgeStatsDisplay);
         enableToggle.setOnAction(e -> {
             if (enableToggle.isSelected()) {
-                isRunning = true;
+                closeReplay();
                 enableToggle.setText("Stop");
-                simulationExecutor.scheduleAtFixedRate(this::simulateStep, 0,
-                        (long)(Config.SIMULATION_TIME_STEP * 1000 * 1000), TimeUnit.MICROSECONDS);
+                engine.start();
+                uiBridge.start();
             } else {
-                isRunning = false;
                 enableToggle.setText("Start");
-                simulationExecutor.shutdownNow();
-                try {
-                    simulationExecutor.awaitTermination(1, TimeUnit.SECONDS);
-                } catch (InterruptedException ignored) {}
-                simulationExecutor = Executors.newScheduledThreadPool(1);
+                engine.stop();
+                uiBridge.stop();
             }
         });
         faultBtn.setOnAction(e -> {
-            faultSimulator.injectFault(faultTypeCombo.getValue());
+            engine.requestFault(faultTypeCombo.getValue());
             faultDisplay.setText("Fault: " + faultTypeCombo.getValue());
             visualizer.resetCanvas();
         });
         faultClearBtn.setOnAction(e -> {
-            faultSimulator.clearFault();
+            engine.requestClearFault();
             faultDisplay.setText("Fault: None");
             faultTypeCombo.setValue("None");
             visualizer.resetCanvas();
         });
+        openLogBtn.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Open Recorded Log");
+            chooser.getExtensionFilters().addAll(
+                    new FileChooser.ExtensionFilter("Run logs", "*.ivlog", "*.csv"),
+                    new FileChooser.ExtensionFilter("All files", "*.*"));
+            File file = chooser.showOpenDialog(primaryStage);
+            if (file != null) openReplay(file.toPath());
+        });
+        closeLogBtn.setOnAction(e -> closeReplay());
+        replayPauseToggle.setOnAction(e -> {
+            replayPauseToggle.setText(replayPauseToggle.isSelected() ? "Resume" : "Pause");
+            if (replaySource != null) replaySource.setPaused(replayPauseToggle.isSelected());
+        });
+        replaySpeedCombo.valueProperty().addListener((obs, old, newVal) -> {
+            if (replaySource != null) replaySource.setSpeed(replaySpeed(newVal));
+        });
+        /// Scrubbing: user moves seek, position updates from renderReplay do not
+        replayPositionSlider.valueProperty().addListener((obs, old, newVal) -> {
+            if (!updatingReplayPosition && replaySource != null) {
+                replaySource.seek(newVal.doubleValue() / 100);
+                visualizer.resetCanvas();
+            }
+        });
         controlModeCombo.setOnAction(e -> visualizer.resetCanvas());
         pwmTypeCombo.setOnAction(e -> visualizer.resetCanvas());
-        updateMotorParameters();
+        /// Control changes are captured here, never polled from the simulation side
+        for (Slider slider : new Slider[]{dcLinkSlider, speedRefSlider, accelRateSlider, torqueRefSlider, fluxRefSlider,
+                loadInertiaSlider, dampingSlider, shaftInertiaSlider, frictionSlider, tempCoeffSlider,
+                couplingStiffnessSlider, pwmFreqSlider, deadTimeSlider, modIndexSlider, fanSpeedSlider, coolantFlowSlider}) {
+            slider.valueProperty().addListener((obs, old, newVal) -> publishParameters());
+        }
+        for (ComboBox<String> combo : List.of(controlModeCombo, pwmTypeCombo, loadTypeCombo, thermalProtectionCombo)) {
+            combo.valueProperty().addListener((obs, old, newVal) -> publishParameters());
+        }
+        for (ToggleButton toggle : new ToggleButton[]{directionToggle, harmonicToggle, overmodToggle, autoResetToggle}) {
+            toggle.selectedProperty().addListener((obs, old, newVal) -> publishParameters());
+        }
+        pacingCombo.valueProperty().addListener((obs, old, newVal) ->
+                engine.setPacing(newVal, timeScaleSlider.getValue()));
+        timeScaleSlider.valueProperty().addListener((obs, old, newVal) ->
+                engine.setPacing(pacingCombo.getValue(), newVal.doubleValue()));
+        engine.setPacing(pacingCombo.getValue(), timeScaleSlider.getValue());
+        publishParameters();
         Scene scene = new Scene(root, 1100, 615);
         primaryStage.setTitle("Inverter Drive Simulation Software");
         primaryStage.setResizable(false);
@@ -271,8 +379,8 @@ public class MainApp extends Application {
             String thumbHoverStyle = "-fx-background-color: #FFFF00;";
             for (Slider slider : new Slider[]{dcLinkSlider, speedRefSlider, accelRateSlider, torqueRefSlider, fluxRefSlider,
                     loadInertiaSlider, dampingSlider, shaftInertiaSlider, frictionSlider,
-                    tempCoeffSlider, couplingStiffnessSlider, pwmFreqSlider, deadTimeSlider,
-                    modIndexSlider, fanSpeedSlider, coolantFlowSlider}) {
+                    tempCoeffSlider, couplingStiffnessSlider, pwmFreqSlider, deadTimeSlider, timeScaleSlider,
+                    modIndexSlider, fanSpeedSlider, coolantFlowSlider, replayPositionSlider}) {
                 if (slider.lookup(".thumb") != null) {
                     slider.lookup(".thumb").setStyle(thumbStyle);
                     slider.lookup(".thumb").setOnMouseEntered(e -> slider.lookup(".thumb").setStyle(thumbStyle + thumbHoverStyle));
@@ -335,7 +443,7 @@ public class MainApp extends Application {
         field.textProperty().addListener((obs, old, newVal) -> {
             try {
                 Double.parseDouble(newVal);
-                updateMotorParameters();
+                publishParameters();
             } catch (NumberFormatException e) {
                 showError("Invalid Input", label + " must be a number");
                 field.setText(defaultValue);
@@ -346,6 +454,37 @@ public class MainApp extends Application {
         return field;
     }
 
+    /// Captures around faults and the thermal limit; the thresholds are registered before the
+    /// recorder is attached and follow the Max Temp field afterwards
+    private void attachCapture(DataLogger logger, TelemetryBus bus, Path directory) {
+        int preSamples = (int) Math.round(Config.CAPTURE_PRE_TRIGGER_TIME / Config.SIMULATION_TIME_STEP);
+        int postSamples = (int) Math.round(Config.CAPTURE_POST_TRIGGER_TIME / Config.SIMULATION_TIME_STEP);
+        try {
+            CaptureRecorder recorder = new CaptureRecorder(directory, bus.getDictionary(), preSamples, postSamples);
+            recorder.addThreshold("MotorTemp", "Rising", captureLimit());
+            recorder.addThreshold("InverterTemp", "Rising", captureLimit());
+            logger.attachCapture(bus, recorder);
+        } catch (IOException e) {
+            showError("File Error", "Failed to create capture directory: " + e.getMessage());
+        }
+    }
+
+    private void updateCaptureLimits(DataLogger logger) {
+        CaptureRecorder recorder = logger != null ? logger.getCaptureRecorder() : null;
+        if (recorder == null) return;
+        recorder.setThresholdLevel(0, captureLimit());
+        recorder.setThresholdLevel(1, captureLimit());
+    }
+
+    /// The configured Max Temp; NaN (never triggers) while the field is not a number
+    private double captureLimit() {
+        try {
+            return Double.parseDouble(maxTempInput.getText());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
     private void showError(String title, String message) {
         Platform.runLater(() -> {
             Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -356,100 +495,168 @@ public class MainApp extends Application {
         });
     }
 
-    private void updateMotorParameters() {
+    /// Captures all controls into one immutable snapshot and hands it to the engine without locking.
+    /// Runs on the FX thread, and only when a control changes.
+    private void publishParameters() {
+        double kp;
+        double ki;
+        try {
+            kp = Double.parseDouble(kpInput.getText());
+            ki = Double.parseDouble(kiInput.getText());
+        } catch (NumberFormatException e) {
+            showError("Invalid Gains", "Kp and Ki must be valid numbers");
+            return;
+        }
+        double maxTemp;
         try {
-            motor.setParameters(
-                    Double.parseDouble(ratedVoltageInput.getText()),
-                    Double.parseDouble(ratedPowerInput.getText()),
-                    Integer.parseInt(polePairsInput.getText()),
-                    Double.parseDouble(resistanceInput.getText()),
-                    Double.parseDouble(inductanceInput.getText()),
-                    loadTypeCombo.getValue(),
-                    loadInertiaSlider.getValue(),
-                    dampingSlider.getValue(),
-                    shaftInertiaSlider.getValue(),
-                    frictionSlider.getValue(),
-                    tempCoeffSlider.getValue(),
-                    couplingStiffnessSlider.getValue(),
-                    fanSpeedSlider.getValue() / 100.0,
-                    coolantFlowSlider.getValue()
-            );
+            maxTemp = Double.parseDouble(maxTempInput.getText());
+        } catch (NumberFormatException e) {
+            showError("Invalid Temperature", "Max Temp must be a valid number");
+            return;
+        }
+        double ratedVoltage;
+        double ratedPower;
+        int polePairs;
+        double resistance;
+        double inductance;
+        try {
+            ratedVoltage = Double.parseDouble(ratedVoltageInput.getText());
+            ratedPower = Double.parseDouble(ratedPowerInput.getText());
+            polePairs = Integer.parseInt(polePairsInput.getText());
+            resistance = Double.parseDouble(resistanceInput.getText());
+            inductance = Double.parseDouble(inductanceInput.getText());
         } catch (NumberFormatException e) {
             showError("Invalid Motor Parameters", "All motor parameters must be valid numbers");
+            return;
         }
+        DriveConfig config;
+        try {
+            config = DriveConfig.DEFAULT
+                    .withMotorThermal(ThermalConfig.MOTOR
+                            .withResistance(Double.parseDouble(motorThermalResInput.getText()))
+                            .withCapacitance(Double.parseDouble(motorThermalCapInput.getText())))
+                    .withInverterThermal(ThermalConfig.INVERTER
+                            .withResistance(Double.parseDouble(inverterThermalResInput.getText()))
+                            .withCapacitance(Double.parseDouble(inverterThermalCapInput.getText())));
+        } catch (IllegalArgumentException e) { // Includes NumberFormatException
+            showError("Invalid Thermal Parameters", "Thermal resistance and capacitance must be valid positive numbers");
+            return;
+        }
+        engine.publish(new DriveParameters(
+                controlModeCombo.getValue(), pwmTypeCombo.getValue(), loadTypeCombo.getValue(),
+                speedRefSlider.getValue(), torqueRefSlider.getValue(), fluxRefSlider.getValue(),
+                accelRateSlider.getValue(), directionToggle.isSelected() ? -1 : 1,
+                kp, ki,
+                dcLinkSlider.getValue(), pwmFreqSlider.getValue() * 1000, deadTimeSlider.getValue() * 1e-6,
+                modIndexSlider.getValue(), harmonicToggle.isSelected(), overmodToggle.isSelected(),
+                ratedVoltage, ratedPower, polePairs, resistance, inductance,
+                loadInertiaSlider.getValue(), dampingSlider.getValue(), shaftInertiaSlider.getValue(),
+                frictionSlider.getValue(), tempCoeffSlider.getValue(), couplingStiffnessSlider.getValue(),
+                fanSpeedSlider.getValue() / 100.0, coolantFlowSlider.getValue(),
+                autoResetToggle.isSelected(), maxTemp, thermalProtectionCombo.getValue(),
+                config));
     }
 
-    private void simulateStep() {
-        if (!isRunning || !enableToggle.isSelected()) {
-            Platform.runLater(() -> {
-                enableToggle.setText("Start");
-                enableToggle.setSelected(false);
-            });
+    /// Draws one engine snapshot; called by the UI bridge at most once per frame
+    private void render(EngineSnapshot snapshot) {
+        if (!engine.isRunning() || !enableToggle.isSelected()) {
+            enableToggle.setText("Start");
+            enableToggle.setSelected(false);
+            uiBridge.stop();
             return;
         }
-        Platform.runLater(() -> {
-            inverter.setDcLinkVoltage(dcLinkSlider.getValue());
-            inverter.setPwmFrequency(pwmFreqSlider.getValue() * 1000);
-            inverter.setDeadTime(deadTimeSlider.getValue() * 1e-6);
-            inverter.setModulationIndex(modIndexSlider.getValue());
-            inverter.setHarmonicInjection(harmonicToggle.isSelected());
-            inverter.setOvermodulation(overmodToggle.isSelected());
-            inverter.setCooling(fanSpeedSlider.getValue() / 100.0, coolantFlowSlider.getValue());
+        String currentControlMode = controlModeCombo.getValue();
+        String currentPwmType = pwmTypeCombo.getValue();
+        String currentFaultType = faultTypeCombo.getValue();
+        if (!currentControlMode.equals(lastControlMode) || !currentPwmType.equals(lastPwmType) || !currentFaultType.equals(lastFaultType)) {
+            visualizer.resetCanvas();
+            lastControlMode = currentControlMode;
+            lastPwmType = currentPwmType;
+            lastFaultType = currentFaultType;
+        }
+        show(snapshot, speedRefSlider.getValue());
+    }
 
-            try {
-                controller.setGains(
-                        Double.parseDouble(kpInput.getText()),
-                        Double.parseDouble(kiInput.getText())
-                );
-            } catch (NumberFormatException e) {
-                showError("Invalid Gains", "Kp and Ki must be valid numbers");
-                return;
-            }
-            String currentControlMode = controlModeCombo.getValue();
-            String currentPwmType = pwmTypeCombo.getValue();
-            String currentFaultType = faultTypeCombo.getValue();
-            if (!currentControlMode.equals(lastControlMode) || !currentPwmType.equals(lastPwmType) || !currentFaultType.equals(lastFaultType)) {
-                visualizer.resetCanvas();
-                lastControlMode = currentControlMode;
-                lastPwmType = currentPwmType;
-                lastFaultType = currentFaultType;
-            }
-            visualizer.setScales(inverter.getDcLinkVoltage(), motor.getRatedVoltage() / motor.getResistance(), speedRefSlider.getValue());
-            double[] pwmSignals = controller.updateControl(
-                    currentControlMode,
-                    speedRefSlider.getValue(),
-                    torqueRefSlider.getValue(),
-                    fluxRefSlider.getValue(),
-                    accelRateSlider.getValue(),
-                    directionToggle.isSelected() ? -1 : 1,
-                    simulationTime
-            );
-            double[] phaseVoltages = inverter.generatePhaseVoltages(pwmSignals, currentPwmType);
-            double maxTemp;
-            try {
-                maxTemp = Double.parseDouble(maxTempInput.getText());
-            } catch (NumberFormatException e) {
-                showError("Invalid Temperature", "Max Temp must be a valid number");
-                return;
-            }
-            phaseVoltages = faultSimulator.applyFaults(phaseVoltages, autoResetToggle.isSelected(),
-                    motor.getTemperature(), inverter.getTemperature(),
-                    maxTemp, thermalProtectionCombo.getValue());
-            double[] phaseCurrents = sensors.measureCurrents(phaseVoltages, motor);
-            motor.updateState(phaseVoltages, phaseCurrents, loadTypeCombo.getValue(), Config.SIMULATION_TIME_STEP);
-            speedDisplay.setText(String.format("Speed: %.1f rad/s", motor.getSpeed()));
-            torqueDisplay.setText(String.format("Torque: %.1f Nm", motor.getTorque()));
-            faultDisplay.setText("Fault: " + faultSimulator.getCurrentFault());
-            motorTempDisplay.setText(String.format("Motor Temp: %.1f °C", motor.getTemperature()));
-            inverterTempDisplay.setText(String.format("Inv Temp: %.1f °C", inverter.getTemperature()));
-            synchronized (dataLogger) {
-                dataLogger.logData(simulationTime, phaseVoltages, phaseCurrents, motor.getSpeed(), motor.getTorque(), currentControlMode, faultSimulator.getCurrentFault());
-            }
-            synchronized (visualizer) {
-                visualizer.updateWaveforms(phaseVoltages, phaseCurrents, motor.getSpeed(), simulationTime);
-            }
-            simulationTime += Config.SIMULATION_TIME_STEP;
-        });
+    /// Opens a recorded log and replays it through a bus of its own, with its own reduced log and
+    /// captures (under captures/replay), so the live files never mix with replayed data; the live
+    /// engine is stopped first
+    private void openReplay(Path path) {
+        if (enableToggle.isSelected()) enableToggle.fire();
+        closeReplay();
+        ReplayLog log;
+        try {
+            log = ReplayLog.open(path);
+        } catch (IOException | RuntimeException e) {
+            showError("File Error", "Failed to open log: " + e.getMessage());
+            return;
+        }
+        TelemetryBus replayBus = new TelemetryBus(1 << 16);
+        replayLogger = new DataLogger();
+        try {
+            replayLogger.attachReduced(replayBus, Path.of("replay_data.ivrlog"),
+                    ReducerSpec.envelopeDefaults(Config.REDUCED_LOG_WINDOW));
+        } catch (IOException e) {
+            showError("File Error", "Failed to create replay reduced log: " + e.getMessage());
+        }
+        attachCapture(replayLogger, replayBus, Path.of("captures", "replay"));
+        replaySource = new ReplaySource(log, replayBus);
+        replaySource.setSpeed(replaySpeed(replaySpeedCombo.getValue()));
+        replaySource.setPaused(replayPauseToggle.isSelected());
+        replayFileLabel.setText(path.getFileName().toString());
+        replayBridge = new UiBridge(replaySource::getSnapshot, this::renderReplay, bridgeStatsDisplay);
+        visualizer.resetCanvas();
+        replaySource.start();
+        replayBridge.start();
+    }
+
+    private void closeReplay() {
+        if (replaySource == null) return;
+        replayBridge.stop();
+        replaySource.stop();
+        replayLogger.close(); // After the source stops, so the last rows are drained
+        try {
+            replaySource.getLog().close();
+        } catch (IOException e) {
+            showError("File Error", "Failed to close log: " + e.getMessage());
+        }
+        replaySource = null;
+        replayBridge = null;
+        replayLogger = null;
+        replayFileLabel.setText("No log open");
+    }
+
+    private static double replaySpeed(String label) {
+        return label.equals("Max") ? Double.POSITIVE_INFINITY : Double.parseDouble(label.replace("×", ""));
+    }
+
+    /// Draws one replayed row; the speed axis uses the full reference range, since a recording
+    /// carries no reference of its own
+    private void renderReplay(EngineSnapshot snapshot) {
+        if (replaySource == null) return;
+        show(snapshot, speedRefSlider.getMax());
+        if (replayPositionSlider.isValueChanging()) return; // Never fight a drag
+        updatingReplayPosition = true;
+        replayPositionSlider.setValue(replaySource.getPosition() * 100);
+        updatingReplayPosition = false;
+    }
+
+    private void show(EngineSnapshot snapshot, double maxSpeed) {
+        visualizer.setScales(snapshot.dcLinkVoltage(), snapshot.maxCurrent(), maxSpeed);
+        speedDisplay.setText(String.format("Speed: %.1f rad/s", snapshot.speed()));
+        torqueDisplay.setText(String.format("Torque: %.1f Nm", snapshot.torque()));
+        faultDisplay.setText("Fault: " + snapshot.fault());
+        motorTempDisplay.setText(String.format("Motor Temp: %.1f °C", snapshot.motorTemperature()));
+        inverterTempDisplay.setText(String.format("Inv Temp: %.1f °C", snapshot.inverterTemperature()));
+        realTimeFactorDisplay.setText(String.format("RTF: %.2f×", snapshot.realTimeFactor()));
+        visualizer.updateWaveforms(snapshot.phaseVoltages(), snapshot.phaseCurrents(), snapshot.speed(), snapshot.time());
+    }
+
+    @Override
+    public void stop() {
+        closeReplay();
+        engine.stop();
+        if (uiBridge != null) uiBridge.stop();
+        dataLogger.close();
     }
 
     public static void main(String[] args) {
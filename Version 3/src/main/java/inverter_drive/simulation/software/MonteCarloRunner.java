@@ -0,0 +1,156 @@
+package inverter_drive.simulation.software;
+
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+
+/// Parallel Monte Carlo over sensor noise and fault draws. Every trial owns independent,
+/// seeded generator streams derived from (rootSeed, trial), so any trial can be replayed
+/// bit-exactly on its own with runTrial().
+public class MonteCarloRunner {
+    private final long rootSeed;
+    private final Consumer<SimulationEngine> setup;
+    private final ToDoubleFunction<SimulationEngine> metric;
+    private double duration = 1.0;
+    private boolean antithetic = false;
+    /// Rare-event importance sampling for one injected fault
+    private String rareFault = null;
+    private double faultProbability = 0.0;
+    private double samplingProbability = 0.0;
+
+    /// setup configures each fresh engine; metric is evaluated once the trial reaches the duration
+    public MonteCarloRunner(long rootSeed, Consumer<SimulationEngine> setup, ToDoubleFunction<SimulationEngine> metric) {
+        this.rootSeed = rootSeed;
+        this.setup = setup;
+        this.metric = metric;
+    }
+
+    public void setDuration(double duration) {
+        this.duration = duration;
+    }
+
+    /// Pairs trials (2k, 2k+1) on mirrored streams; pair means have lower variance for monotone metrics
+    public void setAntithetic(boolean antithetic) {
+        this.antithetic = antithetic;
+    }
+
+    /// Injects faultType at a uniform random time with true probability p per trial, but samples it
+    /// with probability q and reweights each trial by the likelihood ratio
+    public void setRareFault(String faultType, double p, double q) {
+        if (q <= 0.0 || q >= 1.0) {
+            throw new IllegalArgumentException("Sampling probability must be in (0, 1)");
+        }
+        this.rareFault = faultType;
+        this.faultProbability = p;
+        this.samplingProbability = q;
+    }
+
+    public long trialSeed(int trial) {
+        int base = antithetic ? trial >>> 1 : trial;
+        return new SplittableRandom(rootSeed ^ (base * 0x9E3779B97F4A7C15L)).nextLong();
+    }
+
+    public Result run(int trials) {
+        Result result = new Result(trials);
+        IntStream.range(0, trials).parallel().forEach(trial -> runTrial(trial, result, trial));
+        return result;
+    }
+
+    /// Replays a single trial; returns exactly the value the parallel run produced for it
+    public double runTrial(int trial) {
+        Result single = new Result(1);
+        runTrial(trial, single, 0);
+        return single.values[0];
+    }
+
+    /// Runs trial and records it in row slot of result
+    private void runTrial(int trial, Result result, int slot) {
+        long seed = trialSeed(trial);
+        SplittableRandom root = new SplittableRandom(seed);
+        RandomGenerator sensorRandom = root.split();
+        RandomGenerator faultRandom = root.split();
+        RandomGenerator scenarioRandom = root.split();
+        if (antithetic && (trial & 1) == 1) {
+            sensorRandom = new AntitheticRandom(sensorRandom);
+            faultRandom = new AntitheticRandom(faultRandom);
+            scenarioRandom = new AntitheticRandom(scenarioRandom);
+        }
+        SimulationEngine engine = new SimulationEngine(sensorRandom, faultRandom);
+        setup.accept(engine);
+        double weight = 1.0;
+        if (rareFault != null) {
+            boolean occurs = scenarioRandom.nextDouble() < samplingProbability;
+            double faultAt = scenarioRandom.nextDouble() * duration;
+            weight = occurs ? faultProbability / samplingProbability
+                    : (1.0 - faultProbability) / (1.0 - samplingProbability);
+            if (occurs) {
+                engine.runUntil(faultAt);
+                engine.injectFault(rareFault);
+            }
+        }
+        engine.runUntil(duration);
+        result.seeds[slot] = seed;
+        result.weights[slot] = weight;
+        result.values[slot] = metric.applyAsDouble(engine);
+    }
+
+    public class Result {
+        private final long[] seeds;
+        private final double[] weights;
+        private final double[] values;
+
+        Result(int trials) {
+            seeds = new long[trials];
+            weights = new double[trials];
+            values = new double[trials];
+        }
+
+        public int size() {
+            return values.length;
+        }
+
+        public long getSeed(int trial) {
+            return seeds[trial];
+        }
+
+        public double getWeight(int trial) {
+            return weights[trial];
+        }
+
+        public double getValue(int trial) {
+            return values[trial];
+        }
+
+        /// Unbiased estimate of E[metric] under the true fault probability
+        public double getMean() {
+            double sum = 0.0;
+            for (int i = 0; i < values.length; i++) {
+                sum += weights[i] * values[i];
+            }
+            return sum / values.length;
+        }
+
+        /// Standard error of getMean(); antithetic pairs are treated as single samples
+        public double getStandardError() {
+            int group = antithetic ? 2 : 1;
+            int samples = values.length / group;
+            if (samples < 2) return Double.NaN;
+            double mean = 0.0;
+            double sumSquares = 0.0;
+            for (int s = 0; s < samples; s++) {
+                double x = 0.0;
+                for (int g = 0; g < group; g++) {
+                    int i = s * group + g;
+                    x += weights[i] * values[i];
+                }
+                x /= group;
+                double delta = x - mean;
+                mean += delta / (s + 1);
+                sumSquares += delta * (x - mean);
+            }
+            return Math.sqrt(sumSquares / (samples - 1) / samples);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package inverter_drive.simulation.software;
+
+import java.util.Arrays;
+
+/// Runs subsystems at their own update periods on top of the electrical base step.
+/// A task is called with the exact time elapsed since its previous update.
+public class MultiRateScheduler {
+    public interface Task {
+        void update(double elapsed);
+    }
+
+    private String[] names = new String[0];
+    private double[] periods = new double[0];
+    private double[] elapsed = new double[0];
+    private Task[] tasks = new Task[0];
+
+    public void addTask(String name, double period, Task task) {
+        int n = tasks.length;
+        names = Arrays.copyOf(names, n + 1);
+        periods = Arrays.copyOf(periods, n + 1);
+        elapsed = Arrays.copyOf(elapsed, n + 1);
+        tasks = Arrays.copyOf(tasks, n + 1);
+        names[n] = name;
+        periods[n] = period;
+        tasks[n] = task;
+    }
+
+    /// Accounts for one base step and fires every task whose period has elapsed
+    public void advance(double timeStep) {
+        for (int i = 0; i < tasks.length; i++) {
+            double e = elapsed[i] + timeStep;
+            if (e >= periods[i] - 0.5 * timeStep) {
+                tasks[i].update(e);
+                e = 0.0;
+            }
+            elapsed[i] = e;
+        }
+    }
+
+    public void clear() {
+        names = new String[0];
+        periods = new double[0];
+        elapsed = new double[0];
+        tasks = new Task[0];
+    }
+
+    public int getTaskCount() {
+        return tasks.length;
+    }
+
+    public String getTaskName(int index) {
+        return names[index];
+    }
+
+    public double getTaskPeriod(int index) {
+        return periods[index];
+    }
+}
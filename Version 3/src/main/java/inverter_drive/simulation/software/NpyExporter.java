@@ -0,0 +1,271 @@
+package inverter_drive.simulation.software;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/// NumPy export of run traces, with no text conversion. Each channel becomes a 1-D .npy array
+/// (version 1.0, '<f8' for double channels, '<i4' for code channels) and the code dictionary a
+/// '<U' string array, so codes decode as dictionary[Fault]. Headers are padded to 64 bytes, which
+/// keeps the data aligned for numpy.load(mmap_mode='r').
+///
+/// exportNpy() writes one file per channel; column bytes are copied straight from the columnar log
+/// with FileChannel.transferTo. exportNpz() bundles the same arrays as an uncompressed (STORED) zip.
+/// Entry data starts on a 64-byte boundary, so np.memmap can map an array in place. Zip64 is used
+/// past 4 GB.
+public final class NpyExporter {
+    private static final byte[] NPY_MAGIC = {(byte) 0x93, 'N', 'U', 'M', 'P', 'Y', 1, 0};
+    private static final int ALIGNMENT = 64;
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final long ZIP32_LIMIT = 0xFFFFFFFFL;
+    private static final short ALIGNMENT_EXTRA_ID = (short) 0xD935; // As used by zipalign
+
+    private NpyExporter() {
+    }
+
+    /// One array from a primitive buffer
+    public static void writeNpy(Path path, double[] values, int count) throws IOException {
+        try (Output out = new Output(path, false)) {
+            out.write(ByteBuffer.wrap(npyHeader("<f8", count)));
+            ByteBuffer buffer = out.buffer;
+            for (int i = 0; i < count; ) {
+                int n = Math.min(count - i, buffer.capacity() / 8);
+                buffer.clear();
+                buffer.asDoubleBuffer().put(values, i, n);
+                buffer.limit(n * 8);
+                out.write(buffer);
+                i += n;
+            }
+        }
+    }
+
+    /// One <channel>.npy per channel plus dictionary.npy; returns the files written
+    public static List<Path> exportNpy(ColumnarLogReader log, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        for (Entry entry : entries(log)) {
+            Path file = directory.resolve(entry.name);
+            try (Output out = new Output(file, false)) {
+                entry.write(log, out);
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    /// All channels and the dictionary as one .npz
+    public static void exportNpz(ColumnarLogReader log, Path path) throws IOException {
+        List<Entry> entries = entries(log);
+        long[] offsets = new long[entries.size()];
+        long[] crcs = new long[entries.size()];
+        int[] dosTime = dosDateTime();
+        try (Output out = new Output(path, true)) {
+            for (int e = 0; e < entries.size(); e++) {
+                Entry entry = entries.get(e);
+                offsets[e] = out.position;
+                out.write(localHeader(entry, out.position, dosTime));
+                out.crc.reset();
+                entry.write(log, out);
+                crcs[e] = out.crc.getValue();
+                ByteBuffer crc = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt((int) crcs[e]).flip();
+                out.file.write(crc, offsets[e] + 14);
+            }
+            long directoryOffset = out.position;
+            for (int e = 0; e < entries.size(); e++) {
+                out.write(centralHeader(entries.get(e), offsets[e], crcs[e], dosTime));
+            }
+            out.write(endOfCentralDirectory(entries.size(), directoryOffset, out.position - directoryOffset,
+                    out.position));
+        }
+    }
+
+    /// Magic, version 1.0, little-endian header length, then the header dict padded with spaces to
+    /// a multiple of 64 bytes including the final newline
+    static byte[] npyHeader(String descr, long length) {
+        String dict = "{'descr': '" + descr + "', 'fortran_order': False, 'shape': (" + length + ",), }";
+        int unpadded = NPY_MAGIC.length + 2 + dict.length() + 1;
+        int total = (unpadded + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+        ByteBuffer header = ByteBuffer.allocate(total).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(NPY_MAGIC).putShort((short) (total - NPY_MAGIC.length - 2));
+        header.put(dict.getBytes(StandardCharsets.US_ASCII));
+        while (header.remaining() > 1) header.put((byte) ' ');
+        header.put((byte) '\n');
+        return header.array();
+    }
+
+    private static List<Entry> entries(ColumnarLogReader log) {
+        List<Entry> entries = new ArrayList<>();
+        String[] names = log.getChannelNames();
+        String[] codeNames = log.getCodeChannelNames();
+        for (int c = 0; c < names.length; c++) entries.add(new Entry(names[c] + ".npy", c, 8, log.getRowCount()));
+        for (int c = 0; c < codeNames.length; c++) {
+            entries.add(new Entry(codeNames[c] + ".npy", names.length + c, 4, log.getRowCount()));
+        }
+        String[] dictionary = log.getDictionary();
+        int width = 1;
+        for (String value : dictionary) width = Math.max(width, value.codePointCount(0, value.length()));
+        entries.add(new Entry("dictionary.npy", -1, 4 * width, dictionary.length));
+        return entries;
+    }
+
+    /// One array: a log column, or the dictionary when column is -1
+    private static final class Entry {
+        final String name;
+        final int column;
+        final int itemBytes;
+        final long length;
+        final byte[] header;
+
+        Entry(String name, int column, int itemBytes, long length) {
+            this.name = name;
+            this.column = column;
+            this.itemBytes = itemBytes;
+            this.length = length;
+            String descr = column < 0 ? "<U" + itemBytes / 4 : itemBytes == 8 ? "<f8" : "<i4";
+            this.header = npyHeader(descr, length);
+        }
+
+        long size() {
+            return header.length + length * itemBytes;
+        }
+
+        void write(ColumnarLogReader log, Output out) throws IOException {
+            out.write(ByteBuffer.wrap(header));
+            if (column < 0) {
+                writeDictionary(log.getDictionary(), out);
+                return;
+            }
+            long row = 0;
+            long rowCount = log.getRowCount();
+            while (row < rowCount) {
+                int n = (int) Math.min(rowCount - row, log.getSegmentRows() - row % log.getSegmentRows());
+                out.transfer(log.fileChannel(), log.columnOffset(column, row), (long) n * itemBytes);
+                row += n;
+            }
+        }
+
+        /// UTF-32LE code points, zero-padded to the common width
+        private void writeDictionary(String[] dictionary, Output out) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(dictionary.length * itemBytes)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            for (String value : dictionary) {
+                int start = buffer.position();
+                value.codePoints().forEach(buffer::putInt);
+                while (buffer.position() < start + itemBytes) buffer.putInt(0);
+            }
+            out.write(buffer.flip());
+        }
+    }
+
+    private static ByteBuffer localHeader(Entry entry, long offset, int[] dosTime) {
+        byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+        boolean zip64 = entry.size() >= ZIP32_LIMIT;
+        int zip64Bytes = zip64 ? 20 : 0;
+        int fixed = 30 + name.length + zip64Bytes + 4;
+        int padding = (int) ((ALIGNMENT - (offset + fixed) % ALIGNMENT) % ALIGNMENT);
+        ByteBuffer header = ByteBuffer.allocate(fixed + padding).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0x04034B50).putShort((short) (zip64 ? 45 : 20)).putShort((short) 0x0800).putShort((short) 0);
+        header.putShort((short) dosTime[0]).putShort((short) dosTime[1]).putInt(0); // CRC patched later
+        int size32 = (int) (zip64 ? ZIP32_LIMIT : entry.size());
+        header.putInt(size32).putInt(size32).putShort((short) name.length).putShort((short) (zip64Bytes + 4 + padding));
+        header.put(name);
+        if (zip64) header.putShort((short) 1).putShort((short) 16).putLong(entry.size()).putLong(entry.size());
+        header.putShort(ALIGNMENT_EXTRA_ID).putShort((short) padding);
+        return header.position(header.capacity()).flip();
+    }
+
+    private static ByteBuffer centralHeader(Entry entry, long offset, long crc, int[] dosTime) {
+        byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+        boolean bigSize = entry.size() >= ZIP32_LIMIT;
+        boolean bigOffset = offset >= ZIP32_LIMIT;
+        int zip64Bytes = bigSize || bigOffset ? 4 + (bigSize ? 16 : 0) + (bigOffset ? 8 : 0) : 0;
+        ByteBuffer header = ByteBuffer.allocate(46 + name.length + zip64Bytes).order(ByteOrder.LITTLE_ENDIAN);
+        short version = (short) (zip64Bytes > 0 ? 45 : 20);
+        header.putInt(0x02014B50).putShort(version).putShort(version).putShort((short) 0x0800).putShort((short) 0);
+        header.putShort((short) dosTime[0]).putShort((short) dosTime[1]).putInt((int) crc);
+        int size32 = (int) (bigSize ? ZIP32_LIMIT : entry.size());
+        header.putInt(size32).putInt(size32).putShort((short) name.length).putShort((short) zip64Bytes);
+        header.putShort((short) 0).putShort((short) 0).putShort((short) 0).putInt(0);
+        header.putInt((int) (bigOffset ? ZIP32_LIMIT : offset)).put(name);
+        if (zip64Bytes > 0) {
+            header.putShort((short) 1).putShort((short) (zip64Bytes - 4));
+            if (bigSize) header.putLong(entry.size()).putLong(entry.size());
+            if (bigOffset) header.putLong(offset);
+        }
+        return header.flip();
+    }
+
+    /// Zip64 end record and locator when any field overflows, then the classic end record
+    private static ByteBuffer endOfCentralDirectory(int entries, long offset, long size, long position) {
+        boolean zip64 = entries >= 0xFFFF || offset >= ZIP32_LIMIT || size >= ZIP32_LIMIT;
+        ByteBuffer end = ByteBuffer.allocate((zip64 ? 56 + 20 : 0) + 22).order(ByteOrder.LITTLE_ENDIAN);
+        if (zip64) {
+            end.putInt(0x06064B50).putLong(44).putShort((short) 45).putShort((short) 45).putInt(0).putInt(0);
+            end.putLong(entries).putLong(entries).putLong(size).putLong(offset);
+            end.putInt(0x07064B50).putInt(0).putLong(position).putInt(1);
+        }
+        short count = (short) Math.min(entries, 0xFFFF);
+        end.putInt(0x06054B50).putShort((short) 0).putShort((short) 0).putShort(count).putShort(count);
+        end.putInt((int) Math.min(size, ZIP32_LIMIT)).putInt((int) Math.min(offset, ZIP32_LIMIT)).putShort((short) 0);
+        return end.flip();
+    }
+
+    /// MS-DOS time and date fields for the zip headers
+    private static int[] dosDateTime() {
+        LocalDateTime now = LocalDateTime.now();
+        int time = (now.getHour() << 11) | (now.getMinute() << 5) | (now.getSecond() / 2);
+        int date = ((Math.max(1980, now.getYear()) - 1980) << 9) | (now.getMonthValue() << 5) | now.getDayOfMonth();
+        return new int[]{time, date};
+    }
+
+    /// Sequential writer; with a CRC, everything written is also checksummed
+    private static final class Output implements Closeable {
+        final FileChannel file;
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        final CRC32 crc;
+        long position = 0;
+
+        Output(Path path, boolean checksum) throws IOException {
+            file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            crc = checksum ? new CRC32() : null;
+        }
+
+        void write(ByteBuffer data) throws IOException {
+            if (crc != null) crc.update(data.duplicate());
+            while (data.hasRemaining()) position += file.write(data, position);
+        }
+
+        /// Kernel-side copy when no checksum is needed, otherwise through a read-only mapping
+        void transfer(FileChannel source, long offset, long length) throws IOException {
+            if (crc == null) {
+                long done = 0;
+                while (done < length) {
+                    long n = source.transferTo(offset + done, length - done, file.position(position));
+                    if (n <= 0) throw new IOException("Short read at offset " + (offset + done));
+                    done += n;
+                    position += n;
+                }
+                return;
+            }
+            MappedByteBuffer mapped = source.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            write(mapped);
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package inverter_drive.simulation.software;
+
+/// Advances an OdeSystem over one macro step. Fixed-step methods take a single step of size h;
+/// adaptive methods take as many internal substeps as their error control requires.
+public interface OdeIntegrator {
+    /// Advances y in place from t to t + h
+    void integrate(OdeSystem system, double t, double[] y, double h);
+
+    long getStepsTaken();
+
+    long getStepsRejected();
+
+    void resetStatistics();
+
+    String getName();
+
+    /// "Euler", "Heun", "RK4", "RK45" or "Rosenbrock"
+    static OdeIntegrator create(String name) {
+        switch (name) {
+            case "Heun":
+                return new HeunIntegrator();
+            case "RK4":
+                return new Rk4Integrator();
+            case "RK45":
+                return new Rk45Integrator(1e-6, 1e-9);
+            case "Rosenbrock":
+                return new RosenbrockIntegrator(1e-4, 1e-7);
+            default:
+                return new EulerIntegrator();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package inverter_drive.simulation.software;
+
+/// First-order ODE system dy/dt = f(t, y) for the pluggable integrators
+public interface OdeSystem {
+    int dimension();
+
+    /// Writes f(t, y) into dydt; must not keep references to either array
+    void derivatives(double t, double[] y, double[] dydt);
+}
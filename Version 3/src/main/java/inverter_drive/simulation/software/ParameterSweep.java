@@ -0,0 +1,177 @@
+package inverter_drive.simulation.software;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/// Runs independent simulations for a list of sweep points on a work-stealing pool.
+/// Only summary metrics are kept per run, so memory does not grow with the simulated horizon.
+public class ParameterSweep {
+    private static final int LEAF_RUNS = 4; // Runs per fork/join leaf task
+    private final ForkJoinPool pool;
+    private final AtomicInteger completedRuns = new AtomicInteger();
+    private double duration = 1.0;
+    private String controlMode = "V/f";
+    private String pwmType = "SPWM";
+    private String loadType = "Constant";
+    private double speedRef = 100.0;
+    private double torqueRef = 50.0;
+    private double fluxRef = 1.0;
+    private double accelRate = 10.0;
+    private double settlingBand = 0.02;
+    private Function<SweepPoint, DriveConfig> configs = point -> DriveConfig.DEFAULT;
+
+    /// Receives each run as soon as its row is recorded, on the pool thread that ran it
+    public interface RunListener {
+        void onRun(SweepResultTable table, int run);
+    }
+
+    public ParameterSweep() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParameterSweep(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /// Full cartesian grid over the given axes
+    public static List<SweepPoint> grid(double[] resistances, double[] inductances, double[] loadInertias,
+                                        double[] couplingStiffnesses, double[] kps, double[] kis,
+                                        double[] pwmFrequencies) {
+        List<SweepPoint> points = new ArrayList<>();
+        for (double r : resistances)
+            for (double l : inductances)
+                for (double j : loadInertias)
+                    for (double k : couplingStiffnesses)
+                        for (double kp : kps)
+                            for (double ki : kis)
+                                for (double f : pwmFrequencies)
+                                    points.add(new SweepPoint(r, l, j, k, kp, ki, f));
+        return points;
+    }
+
+    public void setRun(String controlMode, String pwmType, String loadType, double duration) {
+        this.controlMode = controlMode;
+        this.pwmType = pwmType;
+        this.loadType = loadType;
+        this.duration = duration;
+    }
+
+    public void setReferences(double speedRef, double torqueRef, double fluxRef, double accelRate) {
+        this.speedRef = speedRef;
+        this.torqueRef = torqueRef;
+        this.fluxRef = fluxRef;
+        this.accelRate = accelRate;
+    }
+
+    /// Half-width of the settling band as a fraction of the speed reference, e.g. 0.02 for ±2 %
+    public void setSettlingBand(double settlingBand) {
+        if (!(settlingBand > 0)) throw new IllegalArgumentException("Settling band must be positive");
+        this.settlingBand = settlingBand;
+    }
+
+    public double getSettlingBand() {
+        return settlingBand;
+    }
+
+    /// Per-run configuration, e.g. to vary thermal or fault parameters alongside the grid
+    public void setConfigs(Function<SweepPoint, DriveConfig> configs) {
+        this.configs = configs;
+    }
+
+    public SweepResultTable run(List<SweepPoint> points) {
+        return run(points, null);
+    }
+
+    /// Streams finished runs to listener while the sweep is in progress; listener may be null
+    public SweepResultTable run(List<SweepPoint> points, RunListener listener) {
+        SweepResultTable table = new SweepResultTable(points.toArray(new SweepPoint[0]), settlingBand);
+        completedRuns.set(0);
+        pool.invoke(new SweepTask(table, 0, table.size(), listener));
+        return table;
+    }
+
+    public int getCompletedRuns() {
+        return completedRuns.get();
+    }
+
+    private void runPoint(SweepResultTable table, int run, RunListener listener) {
+        SweepPoint point = table.getPoint(run);
+        DriveConfig config = configs.apply(point);
+        SimulationEngine engine = new SimulationEngine(config);
+        engine.getMotor().setParameters(230.0, 5.0, 2, point.resistance(), point.inductance(), loadType,
+                point.loadInertia(), 0.01, 0.05, 0.01, 0.005, point.couplingStiffness(), 0.5, 5.0);
+        engine.getController().setGains(point.kp(), point.ki());
+        engine.getInverter().setPwmFrequency(point.pwmFrequency());
+        engine.setControlMode(controlMode);
+        engine.setPwmType(pwmType);
+        engine.setLoadType(loadType);
+        engine.setReferences(speedRef, torqueRef, fluxRef, accelRate, 1);
+        RunMetrics metrics = new RunMetrics(engine.getMotor(), config.ambientTemperature(), table.getSettlingBand());
+        engine.addStepListener(metrics);
+        engine.runUntil(duration);
+        double overshoot = speedRef > 0 ? Math.max(0.0, (metrics.peakSpeed - speedRef) / speedRef * 100.0) : 0.0;
+        double settlingTime = metrics.inBand ? metrics.enteredBandTime : Double.NaN;
+        table.record(run, settlingTime, overshoot, metrics.peakTemperature, engine.getSpeed());
+        completedRuns.incrementAndGet();
+        if (listener != null) listener.onRun(table, run);
+    }
+
+    /// Streams speed and temperature into running summaries instead of keeping the trace
+    private class RunMetrics implements SimulationEngine.StepListener {
+        private final InductionMotor motor;
+        private final double band;
+        private double peakSpeed = 0.0;
+        private double peakTemperature;
+        private boolean inBand = false;
+        private double enteredBandTime = 0.0;
+
+        RunMetrics(InductionMotor motor, double ambientTemperature, double settlingBand) {
+            this.motor = motor;
+            this.band = Math.abs(speedRef) * settlingBand;
+            this.peakTemperature = ambientTemperature;
+        }
+
+        @Override
+        public void onStep(double time, double[] voltages, double[] currents, double speed, double torque,
+                           String controlMode, String fault) {
+            peakSpeed = Math.max(peakSpeed, speed);
+            peakTemperature = Math.max(peakTemperature, motor.getTemperature());
+            boolean within = Math.abs(speed - speedRef) <= band;
+            if (within && !inBand) {
+                enteredBandTime = time;
+            }
+            inBand = within;
+        }
+    }
+
+    @SuppressWarnings("serial") // Never serialized; the outer sweep is not Serializable
+    private class SweepTask extends RecursiveAction {
+        private final SweepResultTable table;
+        private final int from;
+        private final int to;
+        private final RunListener listener;
+
+        SweepTask(SweepResultTable table, int from, int to, RunListener listener) {
+            this.table = table;
+            this.from = from;
+            this.to = to;
+            this.listener = listener;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_RUNS) {
+                for (int run = from; run < to; run++) {
+                    runPoint(table, run, listener);
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SweepTask(table, from, mid, listener), new SweepTask(table, mid, to, listener));
+            }
+        }
+    }
+}
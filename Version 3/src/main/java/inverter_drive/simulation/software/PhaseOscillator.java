@@ -0,0 +1,77 @@
+package inverter_drive.simulation.software;
+
+/// Incremental phase oscillator (NCO) for the rotating reference frames. While the per-step phase
+/// increment holds, the phasor is advanced by one complex rotation instead of a sin/cos pair, and
+/// every RESYNC_STEPS steps it is re-seeded from FastMath to bound drift. While the increment keeps
+/// changing (a ramping V/f frequency changes it every step) the phasor is evaluated directly, two
+/// FastMath calls, and the increment's own sin/cos are only computed once it holds for a step.
+public class PhaseOscillator {
+    private static final int RESYNC_STEPS = 64;
+    /// Increments within this relative tolerance count as unchanged (clock round-off)
+    private static final double INCREMENT_TOLERANCE = 1e-9;
+    private static final double HALF_SQRT3 = Math.sqrt(3) / 2;
+    private double phase = Double.NaN;
+    private double increment = Double.NaN;
+    private double cosIncrement;
+    private double sinIncrement;
+    private double cos = 1.0;
+    private double sin = 0.0;
+    private int sinceSync = 0;
+    private boolean seeded = false; // cosIncrement and sinIncrement match increment
+
+    public void advanceTo(double theta) {
+        double delta = theta - phase;
+        boolean steady = Math.abs(delta - increment) <= INCREMENT_TOLERANCE * Math.abs(increment);
+        if (steady && sinceSync < RESYNC_STEPS && seeded) {
+            double c = cos * cosIncrement - sin * sinIncrement;
+            sin = sin * cosIncrement + cos * sinIncrement;
+            cos = c;
+            sinceSync++;
+        } else {
+            cos = FastMath.cos(theta);
+            sin = FastMath.sin(theta);
+            if (steady && !seeded) {
+                cosIncrement = FastMath.cos(delta);
+                sinIncrement = FastMath.sin(delta);
+                seeded = true;
+            } else if (!steady) {
+                increment = delta;
+                seeded = false;
+            }
+            sinceSync = 0;
+        }
+        phase = theta;
+    }
+
+    public void reset() {
+        phase = Double.NaN;
+        increment = Double.NaN;
+        sinceSync = 0;
+        seeded = false;
+    }
+
+    public double cos() {
+        return cos;
+    }
+
+    public double sin() {
+        return sin;
+    }
+
+    /// cos(θ - 2π/3) and friends from the current phasor, without further trig calls
+    public double cosLag() {
+        return -0.5 * cos + HALF_SQRT3 * sin;
+    }
+
+    public double sinLag() {
+        return -0.5 * sin - HALF_SQRT3 * cos;
+    }
+
+    public double cosLead() {
+        return -0.5 * cos - HALF_SQRT3 * sin;
+    }
+
+    public double sinLead() {
+        return -0.5 * sin + HALF_SQRT3 * cos;
+    }
+}
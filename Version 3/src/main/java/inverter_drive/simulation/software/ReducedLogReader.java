@@ -0,0 +1,105 @@
+package inverter_drive.simulation.software;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/// Loads a ReducedLogWriter file into per-spec arrays. Reduced logs are small by design, so the
+/// whole file is read in one pass.
+public class ReducedLogReader {
+    private final ReducerSpec[] specs;
+    private final double[][] points; // [spec][point * (1 + arity) + column], time in column 0
+    private final int[] counts;
+    private final String[] dictionary;
+
+    public ReducedLogReader(Path path) throws IOException {
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            data = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (data.hasRemaining()) {
+                if (channel.read(data) < 0) break;
+            }
+            data.flip();
+        }
+        if (data.remaining() < 32 || data.getLong(data.limit() - 8) != ReducedLogWriter.MAGIC
+                || data.getLong() != ReducedLogWriter.MAGIC) {
+            throw new IOException("Not a reduced log, or not closed: " + path);
+        }
+        int version = data.getInt();
+        if (version != ReducedLogWriter.VERSION) {
+            throw new IOException("Unsupported reduced log version " + version);
+        }
+        specs = new ReducerSpec[data.getInt()];
+        for (int s = 0; s < specs.length; s++) {
+            String channel = getString(data);
+            String reducer = getString(data);
+            double parameter = data.getDouble();
+            data.getInt(); // Arity, implied by the reducer
+            specs[s] = new ReducerSpec(channel, reducer, parameter);
+        }
+        long trailerOffset = data.getLong(data.limit() - 16);
+        points = new double[specs.length][64];
+        counts = new int[specs.length];
+        while (data.position() < trailerOffset) {
+            int spec = data.getInt();
+            int n = data.getInt();
+            int width = 1 + specs[spec].arity();
+            int needed = (counts[spec] + n) * width;
+            if (needed > points[spec].length) {
+                points[spec] = Arrays.copyOf(points[spec], Math.max(needed, points[spec].length * 2));
+            }
+            data.asDoubleBuffer().get(points[spec], counts[spec] * width, n * width);
+            data.position(data.position() + 8 * n * width);
+            counts[spec] += n;
+        }
+        dictionary = new String[data.getInt()];
+        for (int i = 0; i < dictionary.length; i++) dictionary[i] = getString(data);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public ReducerSpec[] getSpecs() {
+        return specs.clone();
+    }
+
+    /// First spec for a channel and reducer, or -1
+    public int specIndex(String channel, String reducer) {
+        for (int s = 0; s < specs.length; s++) {
+            if (specs[s].channel().equals(channel) && specs[s].reducer().equals(reducer)) return s;
+        }
+        return -1;
+    }
+
+    public int getPointCount(int spec) {
+        return counts[spec];
+    }
+
+    public double[] getTimes(int spec) {
+        return column(spec, 0);
+    }
+
+    /// column 0 is the value (min for "Min/Max"), column 1 the max for "Min/Max"
+    public double[] getValues(int spec, int column) {
+        return column(spec, column + 1);
+    }
+
+    private double[] column(int spec, int column) {
+        int width = 1 + specs[spec].arity();
+        double[] result = new double[counts[spec]];
+        for (int i = 0; i < result.length; i++) result[i] = points[spec][i * width + column];
+        return result;
+    }
+
+    public String decode(int code) {
+        return code >= 0 && code < dictionary.length ? dictionary[code] : "#" + code;
+    }
+}
@@ -0,0 +1,327 @@
+package inverter_drive.simulation.software;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/// Run log that stores each channel through its own ReducerSpec, so every channel keeps its own
+/// point rate. Each point is its time followed by arity() values. All values little-endian:
+///
+///   header   magic "IVRLOG01", int version, int specs, then per spec: short length + UTF-8
+///            channel, short length + UTF-8 reducer, double parameter, int arity
+///   chunk    int spec, int points, then the points as doubles
+///   trailer  int dictionary entries + (short length + UTF-8) each
+///   footer   long trailer offset, long magic
+///
+/// The same channel may appear under several specs (e.g. a current as envelope and cycle RMS).
+public class ReducedLogWriter implements TelemetryBus.SampleHandler, Closeable {
+    static final long MAGIC = 0x3130474F4C525649L; // "IVRLOG01" read little-endian
+    static final int VERSION = 1;
+    private static final int CHUNK_POINTS = 1024;
+    private static final int MAX_CYCLE_SAMPLES = 1 << 16;
+    private static final double LEVEL_GAIN = 1.0 / 4096;
+
+    private final FileChannel file;
+    private final StringDictionary dictionary;
+    private final ReducerSpec[] specs;
+    private final ChannelReducer[] reducers;
+    private final ByteBuffer out = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+    private long position = 0;
+    private long samples = 0;
+    private final long[] points;
+    private boolean closed = false;
+
+    public ReducedLogWriter(Path path, ReducerSpec[] specs, StringDictionary dictionary) throws IOException {
+        this.specs = specs.clone();
+        this.dictionary = dictionary;
+        this.reducers = new ChannelReducer[specs.length];
+        this.points = new long[specs.length];
+        for (int s = 0; s < specs.length; s++) reducers[s] = new ChannelReducer(s, specs[s]);
+        file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        out.putLong(MAGIC).putInt(VERSION).putInt(specs.length);
+        for (ReducerSpec spec : specs) {
+            putString(spec.channel());
+            putString(spec.reducer());
+            reserve(12);
+            out.putDouble(spec.parameter()).putInt(spec.arity());
+        }
+    }
+
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        reserve(2 + bytes.length);
+        out.putShort((short) bytes.length).put(bytes);
+    }
+
+    private void reserve(int bytes) {
+        if (out.remaining() < bytes) drain();
+    }
+
+    private void drain() {
+        out.flip();
+        try {
+            while (out.hasRemaining()) position += file.write(out, position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        out.clear();
+    }
+
+    @Override
+    public void onSample(long sequence, double[] values, int[] codes) {
+        double time = values[TelemetryBus.TIME];
+        for (ChannelReducer reducer : reducers) reducer.accept(time, values, codes);
+        samples++;
+    }
+
+    public ReducerSpec[] getSpecs() {
+        return specs.clone();
+    }
+
+    public long getSampleCount() {
+        return samples;
+    }
+
+    /// Points stored per spec so far, buffered points included
+    public long[] getPointCounts() {
+        long[] counts = points.clone();
+        for (int s = 0; s < reducers.length; s++) counts[s] += reducers[s].buffered;
+        return counts;
+    }
+
+    /// Bytes written so far; drained on chunk boundaries and close()
+    public long getSize() {
+        return position + out.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            for (ChannelReducer reducer : reducers) {
+                reducer.finish();
+                reducer.flushChunk();
+            }
+            long trailerOffset = position + out.position();
+            String[] entries = dictionary != null ? dictionary.values() : new String[0];
+            reserve(4);
+            out.putInt(entries.length);
+            for (String entry : entries) putString(entry);
+            reserve(16);
+            out.putLong(trailerOffset).putLong(MAGIC);
+            drain();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            file.close();
+        }
+    }
+
+    /// Per-spec state. Points collect in a small buffer and go out as one chunk.
+    private final class ChannelReducer {
+        /// Indices into ReducerSpec.REDUCERS
+        private static final int ALL = 0;
+        private static final int EVERY_NTH = 1;
+        private static final int MEAN = 2;
+        private static final int MIN_MAX = 3;
+        private static final int CYCLE_RMS = 4;
+        private static final int DEADBAND = 5;
+        private static final int CHANGES = 6;
+        private final int index;
+        private final int kind;
+        private final int channel; // Double channel, or code channel for "Changes"
+        private final int window;
+        private final double parameter;
+        private final int arity;
+        private final double[] chunk;
+        private int buffered = 0;
+        /// Window state
+        private int count = 0;
+        private double windowStart;
+        private double sum;
+        private double min;
+        private double max;
+        /// Cycle state
+        private double level = Double.NaN;
+        private boolean armed = false;
+        private boolean started = false;
+        /// Swinging door state
+        private double anchorTime;
+        private double anchorValue;
+        private double lastTime;
+        private double lastValue;
+        private double upperSlope;
+        private double lowerSlope;
+        private boolean hasAnchor = false;
+        private boolean hasLast = false;
+        private int lastCode = -1;
+
+        ChannelReducer(int index, ReducerSpec spec) {
+            this.index = index;
+            this.kind = Arrays.asList(ReducerSpec.REDUCERS).indexOf(spec.reducer());
+            this.channel = kind == CHANGES
+                    ? Arrays.asList(TelemetryBus.CODE_CHANNEL_NAMES).indexOf(spec.channel())
+                    : Arrays.asList(TelemetryBus.CHANNEL_NAMES).indexOf(spec.channel());
+            this.parameter = spec.parameter();
+            this.window = (int) Math.max(1, spec.parameter());
+            this.arity = spec.arity();
+            this.chunk = new double[CHUNK_POINTS * (1 + arity)];
+        }
+
+        void accept(double time, double[] values, int[] codes) {
+            switch (kind) {
+                case ALL:
+                    emit(time, values[channel], 0);
+                    break;
+                case EVERY_NTH:
+                    if (count == 0) emit(time, values[channel], 0);
+                    if (++count == window) count = 0;
+                    break;
+                case MEAN:
+                case MIN_MAX:
+                    window(time, values[channel]);
+                    break;
+                case CYCLE_RMS:
+                    cycle(time, values[channel]);
+                    break;
+                case DEADBAND:
+                    swingingDoor(time, values[channel]);
+                    break;
+                case CHANGES:
+                    if (codes[channel] != lastCode) {
+                        lastCode = codes[channel];
+                        emit(time, lastCode, 0);
+                    }
+                    break;
+            }
+        }
+
+        private void window(double time, double value) {
+            if (count == 0) {
+                windowStart = time;
+                sum = 0;
+                min = value;
+                max = value;
+            }
+            sum += value;
+            if (value < min) min = value;
+            if (value > max) max = value;
+            if (++count == window) closeWindow();
+        }
+
+        private void closeWindow() {
+            if (count == 0) return;
+            if (kind == MEAN) {
+                emit(windowStart, sum / count, 0);
+            } else {
+                emit(windowStart, min, max);
+            }
+            count = 0;
+        }
+
+        /// Rising crossing of the running level: below level - hysteresis, then at or above
+        /// level + hysteresis. The level follows the signal mean, so offset phase signals work too
+        private void cycle(double time, double value) {
+            level = Double.isNaN(level) ? value : level + (value - level) * LEVEL_GAIN;
+            if (value < level - parameter) armed = true;
+            boolean crossing = armed && value >= level + parameter;
+            if (crossing) armed = false;
+            if (started && (crossing || count == MAX_CYCLE_SAMPLES)) {
+                emit(windowStart, Math.sqrt(sum / count), 0);
+                count = 0;
+            }
+            if (crossing || started) {
+                if (count == 0) {
+                    windowStart = time;
+                    sum = 0;
+                }
+                sum += value * value;
+                count++;
+                started = true;
+            }
+        }
+
+        /// Swinging door: the door pivots on the anchor at ±parameter; once the upper and lower
+        /// slopes cross, the previous point is archived and becomes the new anchor
+        private void swingingDoor(double time, double value) {
+            if (!hasAnchor) {
+                emit(time, value, 0);
+                anchorTime = time;
+                anchorValue = value;
+                upperSlope = Double.POSITIVE_INFINITY;
+                lowerSlope = Double.NEGATIVE_INFINITY;
+                hasAnchor = true;
+                hasLast = false;
+                return;
+            }
+            double dt = time - anchorTime;
+            double upper = dt > 0 ? Math.min(upperSlope, (value + parameter - anchorValue) / dt) : upperSlope;
+            double lower = dt > 0 ? Math.max(lowerSlope, (value - parameter - anchorValue) / dt) : lowerSlope;
+            if (lower > upper && hasLast) {
+                archiveLast();
+                dt = time - anchorTime;
+                upper = dt > 0 ? (value + parameter - anchorValue) / dt : Double.POSITIVE_INFINITY;
+                lower = dt > 0 ? (value - parameter - anchorValue) / dt : Double.NEGATIVE_INFINITY;
+            }
+            upperSlope = upper;
+            lowerSlope = lower;
+            lastTime = time;
+            lastValue = value;
+            hasLast = true;
+        }
+
+        /// Archives the previous point, pulled onto the still-open door so that interpolating from
+        /// the anchor stays within parameter of every sample in between
+        private void archiveLast() {
+            double dt = lastTime - anchorTime;
+            double value = lastValue;
+            if (dt > 0) {
+                double slope = Math.max(lowerSlope, Math.min(upperSlope, (lastValue - anchorValue) / dt));
+                value = anchorValue + slope * dt;
+            }
+            emit(lastTime, value, 0);
+            anchorTime = lastTime;
+            anchorValue = value;
+        }
+
+        /// Closes partial windows and archives the swinging door's last point
+        void finish() {
+            if (kind == MEAN || kind == MIN_MAX) {
+                closeWindow();
+            } else if (kind == CYCLE_RMS) {
+                if (count > 0) emit(windowStart, Math.sqrt(sum / count), 0);
+                count = 0;
+            } else if (kind == DEADBAND) {
+                if (hasLast && lastTime != anchorTime) archiveLast();
+                hasLast = false;
+            }
+        }
+
+        private void emit(double time, double first, double second) {
+            int base = buffered * (1 + arity);
+            chunk[base] = time;
+            chunk[base + 1] = first;
+            if (arity == 2) chunk[base + 2] = second;
+            if (++buffered == CHUNK_POINTS) flushChunk();
+        }
+
+        void flushChunk() {
+            if (buffered == 0) return;
+            int doubles = buffered * (1 + arity);
+            reserve(8 + 8 * doubles);
+            out.putInt(index).putInt(buffered);
+            for (int i = 0; i < doubles; i++) out.putDouble(chunk[i]);
+            points[index] += buffered;
+            buffered = 0;
+        }
+    }
+}
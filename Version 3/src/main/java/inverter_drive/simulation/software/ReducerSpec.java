@@ -0,0 +1,67 @@
+package inverter_drive.simulation.software;
+
+import java.util.Arrays;
+
+/// How one telemetry channel is reduced before storage. channel is a TelemetryBus channel name;
+/// parameter depends on the reducer:
+///   "All"        - every sample (parameter unused)
+///   "Every Nth"  - one sample in parameter
+///   "Mean"       - mean over windows of parameter samples
+///   "Min/Max"    - min and max over windows of parameter samples, so peaks survive
+///   "Cycle RMS"  - RMS per electrical cycle, delimited by rising crossings of the signal's running
+///                  mean with parameter as hysteresis; a cycle is closed after 65536 samples without
+///                  a crossing
+///   "Deadband"   - swinging-door compression: linear interpolation between the kept points stays
+///                  within parameter of every sample
+///   "Changes"    - code channels: a point whenever the code changes
+public record ReducerSpec(String channel, String reducer, double parameter) {
+    static final String[] REDUCERS = {"All", "Every Nth", "Mean", "Min/Max", "Cycle RMS", "Deadband", "Changes"};
+
+    public ReducerSpec {
+        boolean codeChannel = Arrays.asList(TelemetryBus.CODE_CHANNEL_NAMES).contains(channel);
+        if (!codeChannel && !Arrays.asList(TelemetryBus.CHANNEL_NAMES).contains(channel)) {
+            throw new IllegalArgumentException("Unknown channel: " + channel);
+        }
+        if (!Arrays.asList(REDUCERS).contains(reducer)) {
+            throw new IllegalArgumentException("Unknown reducer: " + reducer);
+        }
+        if (codeChannel != reducer.equals("Changes")) {
+            throw new IllegalArgumentException("Code channels take \"Changes\", and only code channels do: " + channel);
+        }
+        boolean windowed = reducer.equals("Every Nth") || reducer.equals("Mean") || reducer.equals("Min/Max");
+        if (windowed && (parameter < 1 || parameter != Math.rint(parameter))) {
+            throw new IllegalArgumentException(reducer + " needs a whole number of samples");
+        }
+        if ((reducer.equals("Deadband") || reducer.equals("Cycle RMS")) && !(parameter >= 0)) {
+            throw new IllegalArgumentException(reducer + " needs a non-negative parameter");
+        }
+    }
+
+    public static ReducerSpec all(String channel) {
+        return new ReducerSpec(channel, "All", 0);
+    }
+
+    public static ReducerSpec changes(String channel) {
+        return new ReducerSpec(channel, "Changes", 0);
+    }
+
+    /// Values per stored point, after its time
+    public int arity() {
+        return reducer.equals("Min/Max") ? 2 : 1;
+    }
+
+    /// Peak-preserving default for the bus channels: envelopes for voltages and torque, cycle RMS
+    /// for currents, deadband for the slow mechanical and thermal channels, changes for codes
+    public static ReducerSpec[] envelopeDefaults(int window) {
+        return new ReducerSpec[]{
+                new ReducerSpec("Va", "Min/Max", window), new ReducerSpec("Vb", "Min/Max", window),
+                new ReducerSpec("Vc", "Min/Max", window),
+                new ReducerSpec("Ia", "Min/Max", window), new ReducerSpec("Ib", "Min/Max", window),
+                new ReducerSpec("Ic", "Min/Max", window),
+                new ReducerSpec("Ia", "Cycle RMS", 25), new ReducerSpec("Ib", "Cycle RMS", 25),
+                new ReducerSpec("Ic", "Cycle RMS", 25),
+                new ReducerSpec("Speed", "Deadband", 1), new ReducerSpec("Torque", "Min/Max", window),
+                new ReducerSpec("MotorTemp", "Deadband", 1), new ReducerSpec("InverterTemp", "Deadband", 0.1),
+                changes("ControlMode"), changes("Fault")};
+    }
+}
@@ -0,0 +1,47 @@
+package inverter_drive.simulation.software;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/// A recorded run as ReplaySource reads it. Rows are addressed by opaque cursors in file order;
+/// values and codes use the TelemetryBus channel layout, with NaN for channels the log lacks.
+/// Not thread-safe: ReplaySource calls a log from its replay thread only.
+public interface ReplayLog extends Closeable {
+    /// Decodes the codes read by read()
+    StringDictionary getDictionary();
+
+    /// Cursor of the first row, or -1 for an empty log
+    long start();
+
+    /// Cursor at a fraction (0 to 1) of the log, for scrubbing; -1 past the end
+    long seek(double fraction);
+
+    /// Cursor of the first row with Time >= time, assuming Time never decreases; -1 if none
+    long seekTime(double time);
+
+    /// Position of a cursor as a fraction of the log
+    double fraction(long cursor);
+
+    /// Reads the row at cursor into values and codes; returns the next cursor, or -1 after the last row
+    long read(long cursor, double[] values, int[] codes);
+
+    /// Opens a columnar log (.ivlog, by its magic) or a plain CSV log
+    static ReplayLog open(Path path) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.read(magic, 0);
+        }
+        if (magic.position() == 8 && magic.getLong(0) == ColumnarLogWriter.MAGIC) {
+            return new ColumnarReplayLog(new ColumnarLogReader(path));
+        }
+        if (path.getFileName().toString().endsWith(".gz")) {
+            throw new IOException("Compressed CSV cannot be memory-mapped; decompress it first: " + path);
+        }
+        return new CsvLogReader(path);
+    }
+}
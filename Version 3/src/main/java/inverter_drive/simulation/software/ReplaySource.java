@@ -0,0 +1,250 @@
+package inverter_drive.simulation.software;
+
+import java.util.concurrent.locks.LockSupport;
+
+/// Plays a ReplayLog back onto a TelemetryBus, so loggers, captures and the UI consume a recording
+/// exactly as they consume a live run. Pacing mirrors SimulationEngine: log time follows wall time
+/// times the speed from an anchor, which is reset on speed changes, seeks, time jumps (appended runs
+/// restart at 0) and whenever playback falls more than MAX_LAG_NANOS behind. An infinite speed
+/// replays as fast as the subscribers take it.
+///
+/// Controls may be called from any thread; the replay thread applies them between batches.
+public class ReplaySource {
+    private static final int BATCH_ROWS = 1000;
+    private static final long PACING_TICK_NANOS = 1_000_000L;
+    private static final long MAX_LAG_NANOS = 100_000_000L;
+    private static final long REPORT_PERIOD_NANOS = 250_000_000L;
+
+    private final ReplayLog log;
+    private final TelemetryBus bus;
+    private final double[] values = new double[TelemetryBus.CHANNELS];
+    private final int[] codes = new int[TelemetryBus.CODE_CHANNELS];
+    private final double[] peekValues = new double[TelemetryBus.CHANNELS];
+    private final int[] peekCodes = new int[TelemetryBus.CODE_CHANNELS];
+    private final double[] voltages = new double[3];
+    private final double[] currents = new double[3];
+    private volatile double speed = 1.0;
+    private volatile boolean paused = false;
+    private volatile double seekRequest = Double.NaN;
+    private volatile boolean running = false;
+    private volatile boolean finished = false;
+    private volatile EngineSnapshot snapshot;
+    private long cursor; // Replay thread only, like every call into the log
+    private boolean opened = false;
+    private volatile double position = 0.0;
+    private volatile double realTimeFactor = 0.0;
+    private Thread worker;
+    private long rows = 0; // Rows published, seeks included
+    private long snapshotSequence = 0;
+    private double maxVoltage = 0.0;
+    private double maxCurrent = 0.0;
+
+    public ReplaySource(ReplayLog log, TelemetryBus bus) {
+        this.log = log;
+        this.bus = bus;
+    }
+
+    /// Log seconds per wall-clock second; Double.POSITIVE_INFINITY replays unpaced
+    public void setSpeed(double speed) {
+        if (!(speed > 0)) throw new IllegalArgumentException("Replay speed must be positive");
+        this.speed = speed;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /// Jumps to a fraction (0 to 1) of the log; also works while paused or finished
+    public void seek(double fraction) {
+        seekRequest = Math.max(0, Math.min(1, fraction));
+    }
+
+    /// Position as a fraction of the log, as of the last batch; safe from any thread
+    public double getPosition() {
+        return position;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getRowCount() {
+        return rows;
+    }
+
+    public double getRealTimeFactor() {
+        return realTimeFactor;
+    }
+
+    public ReplayLog getLog() {
+        return log;
+    }
+
+    /// Latest published row as a display snapshot; scales are the running peaks seen so far
+    public EngineSnapshot getSnapshot() {
+        EngineSnapshot latest = snapshot;
+        return latest != null ? latest : (snapshot = takeSnapshot());
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        worker = new Thread(this::runLoop, "replay");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = worker;
+            worker = null;
+        }
+        if (thread != null) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void runLoop() {
+        double pace = speed;
+        long anchorWall = System.nanoTime();
+        double anchorTime = Double.NaN; // Set by the first row after an anchor reset
+        double lastTime = Double.NaN;
+        long reportWall = anchorWall;
+        double reportLogTime = 0.0;
+        if (!opened) {
+            opened = true;
+            cursor = log.start();
+            finished = cursor < 0;
+        }
+        while (running) {
+            double request = seekRequest;
+            if (!Double.isNaN(request)) {
+                seekRequest = Double.NaN;
+                cursor = log.seek(request);
+                finished = cursor < 0;
+                anchorTime = Double.NaN;
+                lastTime = Double.NaN;
+                if (!finished) publishRows(1); // Shows the new position even while paused
+                position = log.fraction(cursor);
+                snapshot = takeSnapshot();
+            }
+            if (paused || finished) {
+                anchorTime = Double.NaN;
+                LockSupport.parkNanos(PACING_TICK_NANOS);
+                continue;
+            }
+            if (pace != speed) {
+                /// Re-anchor so a speed change never triggers a catch-up burst
+                pace = speed;
+                anchorTime = Double.NaN;
+            }
+            long now = System.nanoTime();
+            int due;
+            if (Double.isInfinite(pace)) {
+                due = BATCH_ROWS;
+            } else if (Double.isNaN(anchorTime)) {
+                due = 1; // Anchors on the next row
+            } else {
+                double target = anchorTime + (now - anchorWall) * 1e-9 * pace;
+                if ((target - lastTime) * 1e9 / pace > MAX_LAG_NANOS) {
+                    /// Cannot keep up; report the achieved factor instead of bursting later
+                    anchorWall = now;
+                    anchorTime = lastTime;
+                    target = lastTime;
+                }
+                due = countDue(target, lastTime);
+            }
+            if (due > 0) {
+                publishRows(due);
+                double time = values[TelemetryBus.TIME];
+                if (Double.isNaN(anchorTime) || time < lastTime) {
+                    /// First row after a reset, or the log restarted its clock
+                    anchorWall = now;
+                    anchorTime = time;
+                    reportWall = now;
+                    reportLogTime = time;
+                }
+                lastTime = time;
+                position = log.fraction(cursor);
+                snapshot = takeSnapshot();
+            } else {
+                LockSupport.parkNanos(PACING_TICK_NANOS);
+            }
+            if (now - reportWall >= REPORT_PERIOD_NANOS) {
+                realTimeFactor = (lastTime - reportLogTime) / ((now - reportWall) * 1e-9);
+                reportWall = now;
+                reportLogTime = lastTime;
+            }
+        }
+        realTimeFactor = 0.0;
+        snapshot = takeSnapshot();
+    }
+
+    /// Rows of the next batch whose time is at or before target. A row earlier than the one before
+    /// it (appended runs restart at 0) is published on its own so the loop can re-anchor on it
+    private int countDue(double target, double lastTime) {
+        long position = cursor;
+        double previous = lastTime;
+        int due = 0;
+        while (position >= 0 && due < BATCH_ROWS) {
+            long next = log.read(position, peekValues, peekCodes);
+            double time = peekValues[TelemetryBus.TIME];
+            if (time < previous) return due == 0 ? 1 : due;
+            if (time > target) break;
+            previous = time;
+            position = next;
+            due++;
+        }
+        return due;
+    }
+
+    private void publishRows(int count) {
+        StringDictionary dictionary = log.getDictionary();
+        for (int i = 0; i < count && cursor >= 0; i++) {
+            long next = log.read(cursor, values, codes);
+            voltages[0] = values[TelemetryBus.VA];
+            voltages[1] = values[TelemetryBus.VB];
+            voltages[2] = values[TelemetryBus.VC];
+            currents[0] = values[TelemetryBus.IA];
+            currents[1] = values[TelemetryBus.IB];
+            currents[2] = values[TelemetryBus.IC];
+            for (int p = 0; p < 3; p++) {
+                if (Math.abs(voltages[p]) > maxVoltage) maxVoltage = Math.abs(voltages[p]);
+                if (Math.abs(currents[p]) > maxCurrent) maxCurrent = Math.abs(currents[p]);
+            }
+            /// Decoded strings are the dictionary's own instances, so the bus encodes them by identity
+            bus.publish(values[TelemetryBus.TIME], voltages, currents, values[TelemetryBus.SPEED],
+                    values[TelemetryBus.TORQUE], values[TelemetryBus.MOTOR_TEMP], values[TelemetryBus.INVERTER_TEMP],
+                    dictionary.decode(codes[TelemetryBus.CONTROL_MODE]), dictionary.decode(codes[TelemetryBus.FAULT]));
+            rows++;
+            cursor = next;
+        }
+        if (cursor < 0) finished = true;
+    }
+
+    private EngineSnapshot takeSnapshot() {
+        String fault = rows > 0 ? log.getDictionary().decode(codes[TelemetryBus.FAULT]) : "None";
+        return new EngineSnapshot(++snapshotSequence, System.nanoTime(), values[TelemetryBus.TIME], rows,
+                voltages.clone(), currents.clone(), values[TelemetryBus.SPEED], values[TelemetryBus.TORQUE],
+                values[TelemetryBus.MOTOR_TEMP], values[TelemetryBus.INVERTER_TEMP], fault,
+                maxVoltage, maxCurrent, realTimeFactor);
+    }
+}
@@ -0,0 +1,64 @@
+package inverter_drive.simulation.software;
+
+/// Dormand-Prince 5(4) embedded Runge-Kutta with error control
+public class Rk45Integrator extends AdaptiveIntegrator {
+    private static final double[][] A = {
+            {},
+            {1.0 / 5},
+            {3.0 / 40, 9.0 / 40},
+            {44.0 / 45, -56.0 / 15, 32.0 / 9},
+            {19372.0 / 6561, -25360.0 / 2187, 64448.0 / 6561, -212.0 / 729},
+            {9017.0 / 3168, -355.0 / 33, 46732.0 / 5247, 49.0 / 176, -5103.0 / 18656},
+            {35.0 / 384, 0, 500.0 / 1113, 125.0 / 192, -2187.0 / 6784, 11.0 / 84}
+    };
+    private static final double[] C = {0, 1.0 / 5, 3.0 / 10, 4.0 / 5, 8.0 / 9, 1, 1};
+    /// Fifth-order weights are the last row of A; E = b5 - b4
+    private static final double[] E = {71.0 / 57600, 0, -71.0 / 16695, 71.0 / 1920, -17253.0 / 339200, 22.0 / 525, -1.0 / 40};
+    private double[][] k = new double[7][0];
+    private double[] work = new double[0];
+
+    public Rk45Integrator(double relativeTolerance, double absoluteTolerance) {
+        super(relativeTolerance, absoluteTolerance);
+    }
+
+    @Override
+    protected int errorOrder() {
+        return 4;
+    }
+
+    @Override
+    protected void allocate(int n) {
+        k = new double[7][n];
+        work = new double[n];
+    }
+
+    @Override
+    protected void attempt(OdeSystem system, double t, double[] y, double h) {
+        int n = y.length;
+        system.derivatives(t, y, k[0]);
+        for (int s = 1; s < 7; s++) {
+            double[] a = A[s];
+            double[] target = s == 6 ? yNew : work;
+            for (int i = 0; i < n; i++) {
+                double sum = 0.0;
+                for (int j = 0; j < s; j++) {
+                    sum += a[j] * k[j][i];
+                }
+                target[i] = y[i] + h * sum;
+            }
+            system.derivatives(t + C[s] * h, target, k[s]);
+        }
+        for (int i = 0; i < n; i++) {
+            double sum = 0.0;
+            for (int s = 0; s < 7; s++) {
+                sum += E[s] * k[s][i];
+            }
+            error[i] = h * sum;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "RK45";
+    }
+}
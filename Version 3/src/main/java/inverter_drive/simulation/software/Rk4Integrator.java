@@ -0,0 +1,30 @@
+package inverter_drive.simulation.software;
+
+/// Classic fourth-order Runge-Kutta
+public class Rk4Integrator extends FixedStepIntegrator {
+    @Override
+    public void integrate(OdeSystem system, double t, double[] y, double h) {
+        int n = system.dimension();
+        ensureCapacity(n, 4);
+        double[] k1 = stages[0];
+        double[] k2 = stages[1];
+        double[] k3 = stages[2];
+        double[] k4 = stages[3];
+        system.derivatives(t, y, k1);
+        for (int i = 0; i < n; i++) work[i] = y[i] + 0.5 * h * k1[i];
+        system.derivatives(t + 0.5 * h, work, k2);
+        for (int i = 0; i < n; i++) work[i] = y[i] + 0.5 * h * k2[i];
+        system.derivatives(t + 0.5 * h, work, k3);
+        for (int i = 0; i < n; i++) work[i] = y[i] + h * k3[i];
+        system.derivatives(t + h, work, k4);
+        for (int i = 0; i < n; i++) {
+            y[i] += h / 6.0 * (k1[i] + 2 * k2[i] + 2 * k3[i] + k4[i]);
+        }
+        countStep();
+    }
+
+    @Override
+    public String getName() {
+        return "RK4";
+    }
+}
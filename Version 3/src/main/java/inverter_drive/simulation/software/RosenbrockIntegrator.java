@@ -0,0 +1,119 @@
+package inverter_drive.simulation.software;
+
+/// Two-stage L-stable Rosenbrock method (ROS2) for stiff systems, with an embedded first-order
+/// solution for error control. The Jacobian is built by forward differences each step.
+public class RosenbrockIntegrator extends AdaptiveIntegrator {
+    private static final double GAMMA = 1.0 + 1.0 / Math.sqrt(2.0);
+    private double[] f0 = new double[0];
+    private double[] f1 = new double[0];
+    private double[] k1 = new double[0];
+    private double[] k2 = new double[0];
+    private double[] work = new double[0];
+    private double[] matrix = new double[0]; // W = I - gamma h J, row-major, LU-factorized in place
+    private int[] pivots = new int[0];
+
+    public RosenbrockIntegrator(double relativeTolerance, double absoluteTolerance) {
+        super(relativeTolerance, absoluteTolerance);
+    }
+
+    @Override
+    protected int errorOrder() {
+        return 1;
+    }
+
+    @Override
+    protected void allocate(int n) {
+        f0 = new double[n];
+        f1 = new double[n];
+        k1 = new double[n];
+        k2 = new double[n];
+        work = new double[n];
+        matrix = new double[n * n];
+        pivots = new int[n];
+    }
+
+    @Override
+    protected void attempt(OdeSystem system, double t, double[] y, double h) {
+        int n = y.length;
+        system.derivatives(t, y, f0);
+        /// W = I - gamma h J with J from forward differences
+        for (int j = 0; j < n; j++) {
+            double saved = y[j];
+            double delta = 1e-7 * Math.max(1.0, Math.abs(saved));
+            System.arraycopy(y, 0, work, 0, n);
+            work[j] = saved + delta;
+            system.derivatives(t, work, f1);
+            for (int i = 0; i < n; i++) {
+                double jacobian = (f1[i] - f0[i]) / delta;
+                matrix[i * n + j] = (i == j ? 1.0 : 0.0) - GAMMA * h * jacobian;
+            }
+        }
+        factorize(n);
+        System.arraycopy(f0, 0, k1, 0, n);
+        solve(n, k1);
+        for (int i = 0; i < n; i++) {
+            work[i] = y[i] + h * k1[i];
+        }
+        system.derivatives(t + h, work, f1);
+        for (int i = 0; i < n; i++) {
+            k2[i] = f1[i] - 2.0 * k1[i];
+        }
+        solve(n, k2);
+        for (int i = 0; i < n; i++) {
+            yNew[i] = y[i] + 1.5 * h * k1[i] + 0.5 * h * k2[i];
+            error[i] = 0.5 * h * (k1[i] + k2[i]);
+        }
+    }
+
+    /// LU decomposition with partial pivoting
+    private void factorize(int n) {
+        for (int c = 0; c < n; c++) {
+            int pivot = c;
+            for (int r = c + 1; r < n; r++) {
+                if (Math.abs(matrix[r * n + c]) > Math.abs(matrix[pivot * n + c])) pivot = r;
+            }
+            pivots[c] = pivot;
+            if (pivot != c) {
+                for (int j = 0; j < n; j++) {
+                    double tmp = matrix[c * n + j];
+                    matrix[c * n + j] = matrix[pivot * n + j];
+                    matrix[pivot * n + j] = tmp;
+                }
+            }
+            double diagonal = matrix[c * n + c];
+            for (int r = c + 1; r < n; r++) {
+                double factor = matrix[r * n + c] / diagonal;
+                matrix[r * n + c] = factor;
+                for (int j = c + 1; j < n; j++) {
+                    matrix[r * n + j] -= factor * matrix[c * n + j];
+                }
+            }
+        }
+    }
+
+    private void solve(int n, double[] b) {
+        for (int c = 0; c < n; c++) {
+            int pivot = pivots[c];
+            if (pivot != c) {
+                double tmp = b[c];
+                b[c] = b[pivot];
+                b[pivot] = tmp;
+            }
+            for (int r = c + 1; r < n; r++) {
+                b[r] -= matrix[r * n + c] * b[c];
+            }
+        }
+        for (int r = n - 1; r >= 0; r--) {
+            double sum = b[r];
+            for (int j = r + 1; j < n; j++) {
+                sum -= matrix[r * n + j] * b[j];
+            }
+            b[r] = sum / matrix[r * n + r];
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "Rosenbrock";
+    }
+}
@@ -0,0 +1,10 @@
+package inverter_drive.simulation.software;
+
+/// Current sensor path: relative Gaussian noise
+public record SensorConfig(double noiseStdDev) {
+    public static final SensorConfig DEFAULT = new SensorConfig(Config.SENSOR_NOISE_STDDEV);
+
+    public SensorConfig {
+        if (!(noiseStdDev >= 0)) throw new IllegalArgumentException("Noise standard deviation must not be negative");
+    }
+}
@@ -1,22 +1,56 @@
 package inverter_drive.simulation.software;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 public class SensorModel {
     private boolean currentSensorFault = false;
     private double partialFailureScale = 1.0;
-    private final Random random = new Random();
+    private final RandomGenerator random;
+    private double noiseStdDev;
+
+    public SensorModel() {
+        this(new SplittableRandom());
+    }
+
+    public SensorModel(RandomGenerator random) {
+        this(random, SensorConfig.DEFAULT);
+    }
+
+    public SensorModel(RandomGenerator random, SensorConfig config) {
+        this.random = random;
+        configure(config);
+    }
+
+    public void configure(SensorConfig config) {
+        this.noiseStdDev = config.noiseStdDev();
+    }
+
     public double[] measureCurrents(double[] phaseVoltages, InductionMotor motor) {
         double[] currents = new double[3];
+        measureCurrents(phaseVoltages, motor, currents);
+        return currents;
+    }
+    /// Allocation-free variant; writes the three measured currents into currents
+    public void measureCurrents(double[] phaseVoltages, InductionMotor motor, double[] currents) {
+        for (int i = 0; i < 3; i++) {
+            currents[i] = phaseVoltages[i] / (motor.getResistance() + motor.getInductance() * 0.1);
+        }
+        measure(currents, currents);
+    }
+    /// Sensor path only, for models that compute the true currents themselves; currents may alias trueCurrents
+    public void measure(double[] trueCurrents, double[] currents) {
         if (!currentSensorFault) {
+            final double noiseStdDev = this.noiseStdDev;
             for (int i = 0; i < 3; i++) {
-                currents[i] = phaseVoltages[i] / (motor.getResistance() + motor.getInductance() * 0.1);
+                currents[i] = trueCurrents[i];
                 /// Add Gaussian noise
-                currents[i] += random.nextGaussian() * Config.SENSOR_NOISE_STDDEV * currents[i];
+                currents[i] += random.nextGaussian() * noiseStdDev * currents[i];
                 /// Apply partial failure
                 currents[i] *= partialFailureScale;
             }
+        } else {
+            for (int i = 0; i < 3; i++) currents[i] = 0;
         }
-        return currents;
     }
     public void setCurrentSensorFault(boolean fault) {
         this.currentSensorFault = fault;
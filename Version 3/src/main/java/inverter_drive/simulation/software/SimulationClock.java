@@ -0,0 +1,19 @@
+package inverter_drive.simulation.software;
+
+/// Simulated time shared by all components of one engine. Only the engine advances it,
+/// so timers behave identically at any pacing, on any host and in parallel runs.
+public class SimulationClock {
+    private double time = 0.0; // seconds
+
+    public double getTime() {
+        return time;
+    }
+
+    public void advance(double timeStep) {
+        time += timeStep;
+    }
+
+    public void reset() {
+        time = 0.0;
+    }
+}
@@ -0,0 +1,517 @@
+package inverter_drive.simulation.software;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.random.RandomGenerator;
+import java.util.concurrent.locks.LockSupport;
+
+/// Headless simulation engine. Owns the controller → inverter → fault → sensor → motor chain
+/// and advances it on its own thread as fast as the CPU allows; no JavaFX dependency.
+public class SimulationEngine {
+    private final InductionMotor motor;
+    private final VfController controller;
+    private final InverterPowerStage inverter;
+    private final SensorModel sensors;
+    private final FaultSimulator faultSimulator;
+    private volatile StepListener[] listeners = new StepListener[0];
+    private volatile TelemetryBus telemetry; // null publishes nothing
+    private final int batchSize = 1000; // Steps per lock acquisition on the worker thread
+    private final long pacingTickNanos = 1_000_000; // Wall-clock tick for paced modes
+    private final long maxLagNanos = 100_000_000; // Paced backlog dropped beyond this
+    private final long reportPeriodNanos = 250_000_000; // Real-time factor measurement window
+    private volatile boolean running = false;
+    private Thread worker;
+    /// Pacing: "Max Speed", "Real-Time" or "Scaled" (timeScale × real time)
+    private volatile String pacingMode = "Max Speed";
+    private volatile double timeScale = 1.0;
+    private volatile double realTimeFactor = 0.0;
+    private final SimulationClock clock = new SimulationClock();
+    private volatile double timeStep;
+    private DriveConfig config;
+    private final MultiRateScheduler scheduler = new MultiRateScheduler();
+    private boolean multiRate = false;
+    private FidelityPolicy fidelityPolicy; // null keeps the inverter at its fixed fidelity level
+    private String lastFault = "None";
+    private long stepCount = 0;
+    /// Lock-free inputs from other threads, picked up at the next step boundary
+    private volatile DriveParameters pendingParameters;
+    private DriveParameters appliedParameters;
+    private final AtomicReference<String> pendingFaultCommand = new AtomicReference<>(); // "None" clears
+    /// Latest results for display threads, replaced after every worker batch; readers never block the engine
+    private volatile EngineSnapshot snapshot;
+    private long snapshotSequence = 0;
+    /// Step inputs
+    private String controlMode = "V/f";
+    private String pwmType = "SPWM";
+    private String loadType = "Constant";
+    private double speedRef = 100.0;
+    private double torqueRef = 50.0;
+    private double fluxRef = 1.0;
+    private double accelRate = 10.0;
+    private double direction = 1;
+    private boolean autoReset = false;
+    private double maxTemp = 150.0;
+    private String protectionMode = "Warning";
+    /// Preallocated step buffers; a steady-state step allocates nothing
+    private final double[] pwmSignals = new double[3];
+    private final double[] phaseVoltages = new double[3];
+    private final double[] phaseCurrents = new double[3];
+    private final double[] trueCurrents = new double[3];
+
+    public interface StepListener {
+        /// The arrays are engine buffers reused every step; copy them to keep values
+        void onStep(double time, double[] voltages, double[] currents, double speed, double torque,
+                    String controlMode, String fault);
+    }
+
+    public SimulationEngine() {
+        this(DriveConfig.DEFAULT, new SplittableRandom());
+    }
+
+    /// Reproducible engine: the same seed replays the same sensor noise and fault draws bit-exactly
+    public SimulationEngine(long seed) {
+        this(seed, DriveConfig.DEFAULT);
+    }
+
+    public SimulationEngine(RandomGenerator sensorRandom, RandomGenerator faultRandom) {
+        this(DriveConfig.DEFAULT, sensorRandom, faultRandom);
+    }
+
+    public SimulationEngine(DriveConfig config) {
+        this(config, new SplittableRandom());
+    }
+
+    public SimulationEngine(long seed, DriveConfig config) {
+        this(config, new SplittableRandom(seed));
+    }
+
+    private SimulationEngine(DriveConfig config, SplittableRandom root) {
+        this(config, root.split(), root.split());
+    }
+
+    public SimulationEngine(DriveConfig config, RandomGenerator sensorRandom, RandomGenerator faultRandom) {
+        this.config = config;
+        this.timeStep = config.timeStep();
+        inverter = new InverterPowerStage(clock, config, 400.0, 10000, 1e-6, 0.8, false, false);
+        motor = new InductionMotor(config);
+        controller = new VfController(motor);
+        controller.setTimeStep(timeStep);
+        sensors = new SensorModel(sensorRandom, config.sensor());
+        faultSimulator = new FaultSimulator(inverter, sensors, clock, faultRandom, config.fault());
+    }
+
+    public synchronized void step() {
+        stepOnce();
+    }
+
+    public synchronized void step(int n) {
+        for (int i = 0; i < n; i++) {
+            stepOnce();
+        }
+    }
+
+    public synchronized void runUntil(double endTime) {
+        while (clock.getTime() + 0.5 * timeStep < endTime) {
+            stepOnce();
+        }
+    }
+
+    private void stepOnce() {
+        DriveParameters parameters = pendingParameters;
+        if (parameters != appliedParameters) {
+            applyParameters(parameters);
+            appliedParameters = parameters;
+        }
+        if (pendingFaultCommand.get() != null) {
+            String faultType = pendingFaultCommand.getAndSet(null);
+            if (faultType.equals("None")) {
+                clearFault();
+            } else {
+                injectFault(faultType);
+            }
+        }
+        controller.updateControl(controlMode, speedRef, torqueRef, fluxRef,
+                accelRate, direction, clock.getTime(), pwmSignals);
+        inverter.generatePhaseVoltages(pwmSignals, pwmType, phaseVoltages);
+        faultSimulator.applyFaults(phaseVoltages, autoReset, motor.getTemperature(),
+                inverter.getTemperature(), maxTemp, protectionMode, phaseVoltages);
+        if (fidelityPolicy != null) {
+            String fault = faultSimulator.getCurrentFault();
+            if (!fault.equals(lastFault)) {
+                if (!fault.equals("None")) fidelityPolicy.faultOccurred(clock.getTime());
+                lastFault = fault;
+            }
+            inverter.setFidelity(fidelityPolicy.levelAt(clock.getTime()));
+        }
+        inverter.driveLoad(phaseVoltages, motor.getResistance(), motor.getInductance(), timeStep, trueCurrents);
+        sensors.measure(trueCurrents, phaseCurrents);
+        if (multiRate) {
+            motor.updateElectrical(phaseCurrents, timeStep);
+            scheduler.advance(timeStep);
+        } else {
+            motor.updateState(phaseVoltages, phaseCurrents, loadType, timeStep);
+        }
+        StepListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            current[i].onStep(clock.getTime(), phaseVoltages, phaseCurrents, motor.getSpeed(), motor.getTorque(),
+                    controlMode, faultSimulator.getCurrentFault());
+        }
+        TelemetryBus bus = telemetry;
+        if (bus != null) {
+            bus.publish(clock.getTime(), phaseVoltages, phaseCurrents, motor.getSpeed(), motor.getTorque(),
+                    motor.getTemperature(), inverter.getTemperature(), controlMode, faultSimulator.getCurrentFault());
+        }
+        clock.advance(timeStep);
+        stepCount++;
+    }
+
+    private void applyParameters(DriveParameters p) {
+        if (!p.config().equals(config)) {
+            setConfig(p.config());
+        }
+        inverter.setDcLinkVoltage(p.dcLinkVoltage());
+        inverter.setPwmFrequency(p.pwmFrequency());
+        inverter.setDeadTime(p.deadTime());
+        inverter.setModulationIndex(p.modulationIndex());
+        inverter.setHarmonicInjection(p.harmonicInjection());
+        inverter.setOvermodulation(p.overmodulation());
+        inverter.setCooling(p.fanSpeed(), p.coolantFlow());
+        controller.setGains(p.kp(), p.ki());
+        motor.setParameters(p.ratedVoltage(), p.ratedPower(), p.polePairs(), p.resistance(), p.inductance(),
+                p.loadType(), p.loadInertia(), p.damping(), p.shaftInertia(), p.friction(),
+                p.tempCoefficient(), p.couplingStiffness(), p.fanSpeed(), p.coolantFlow());
+        setControlMode(p.controlMode());
+        setPwmType(p.pwmType());
+        setLoadType(p.loadType());
+        setReferences(p.speedRef(), p.torqueRef(), p.fluxRef(), p.accelRate(), p.direction());
+        setProtection(p.autoReset(), p.maxTemp(), p.protectionMode());
+    }
+
+    /// Publishes a complete set of inputs without taking the engine lock; the latest snapshot
+    /// published before a step boundary is applied there as a whole
+    public void publish(DriveParameters parameters) {
+        pendingParameters = parameters;
+    }
+
+    /// Lock-free fault command, applied at the next step boundary
+    public void requestFault(String faultType) {
+        pendingFaultCommand.set(faultType);
+    }
+
+    public void requestClearFault() {
+        pendingFaultCommand.set("None");
+    }
+
+    /// Runs the engine on a background thread until stop() is called
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        worker = new Thread(this::runLoop, "simulation-engine");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void runLoop() {
+        String mode = pacingMode;
+        double scale = timeScale;
+        long anchorWall = System.nanoTime();
+        double anchorSim = getSimulationTime();
+        long reportWall = anchorWall;
+        double reportSim = anchorSim;
+        while (running) {
+            if (!mode.equals(pacingMode) || scale != timeScale) {
+                /// Re-anchor so a pacing change never triggers a catch-up burst
+                mode = pacingMode;
+                scale = timeScale;
+                anchorWall = System.nanoTime();
+                anchorSim = getSimulationTime();
+            }
+            if (mode.equals("Max Speed")) {
+                step(batchSize);
+                snapshot = takeSnapshot();
+            } else {
+                double speed = mode.equals("Real-Time") ? 1.0 : scale;
+                long now = System.nanoTime();
+                double simTime = getSimulationTime();
+                double lag = anchorSim + (now - anchorWall) * 1e-9 * speed - simTime;
+                if (lag * 1e9 / speed > maxLagNanos) {
+                    /// Cannot keep up; report the achieved factor instead of bursting later
+                    anchorWall = now;
+                    anchorSim = simTime;
+                    lag = 0;
+                }
+                int due = (int) Math.min(batchSize, Math.floor(lag / timeStep));
+                if (due > 0) {
+                    step(due);
+                    snapshot = takeSnapshot();
+                } else {
+                    LockSupport.parkNanos(pacingTickNanos);
+                }
+            }
+            long now = System.nanoTime();
+            if (now - reportWall >= reportPeriodNanos) {
+                double simTime = getSimulationTime();
+                realTimeFactor = (simTime - reportSim) / ((now - reportWall) * 1e-9);
+                reportWall = now;
+                reportSim = simTime;
+            }
+        }
+        realTimeFactor = 0.0;
+        snapshot = takeSnapshot();
+    }
+
+    private synchronized EngineSnapshot takeSnapshot() {
+        return new EngineSnapshot(++snapshotSequence, System.nanoTime(), clock.getTime(), stepCount,
+                phaseVoltages.clone(), phaseCurrents.clone(), motor.getSpeed(), motor.getTorque(),
+                motor.getTemperature(), inverter.getTemperature(), faultSimulator.getCurrentFault(),
+                inverter.getDcLinkVoltage(), motor.getRatedVoltage() / motor.getResistance(), realTimeFactor);
+    }
+
+    /// Latest published results without taking the engine lock; taken on demand before the first batch
+    public EngineSnapshot getSnapshot() {
+        EngineSnapshot latest = snapshot;
+        return latest != null ? latest : (snapshot = takeSnapshot());
+    }
+
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = worker;
+            worker = null;
+        }
+        if (thread != null) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void setPacing(String pacingMode, double timeScale) {
+        this.pacingMode = pacingMode;
+        this.timeScale = Math.max(1e-3, timeScale);
+    }
+
+    public String getPacingMode() {
+        return pacingMode;
+    }
+
+    /// Simulated seconds per wall-clock second, measured over the last report window
+    public double getRealTimeFactor() {
+        return realTimeFactor;
+    }
+
+    public synchronized void addStepListener(StepListener listener) {
+        StepListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    public synchronized void removeStepListener(StepListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                StepListener[] updated = new StepListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, updated, 0, i);
+                System.arraycopy(listeners, i + 1, updated, i, listeners.length - i - 1);
+                listeners = updated;
+                return;
+            }
+        }
+    }
+
+    /// Publishes every step into the bus from the worker thread; consumers read it on their own threads.
+    /// Replace the bus only while stopped, since a bus has a single producer.
+    public void setTelemetryBus(TelemetryBus telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    public TelemetryBus getTelemetryBus() {
+        return telemetry;
+    }
+
+    /// Applies a new configuration to every component, time step included; state is kept
+    public synchronized void setConfig(DriveConfig config) {
+        this.config = config;
+        motor.configure(config);
+        inverter.configure(config);
+        sensors.configure(config.sensor());
+        faultSimulator.configure(config.fault());
+        setTimeStep(config.timeStep());
+    }
+
+    public synchronized DriveConfig getConfig() {
+        return config;
+    }
+
+    /// Macro step of the engine; with an adaptive motor integrator this can be far above 100 µs
+    public synchronized void setTimeStep(double timeStep) {
+        if (timeStep != config.timeStep()) config = config.withTimeStep(timeStep);
+        this.timeStep = timeStep;
+        controller.setTimeStep(timeStep);
+        inverter.setTimeStep(timeStep);
+    }
+
+    public synchronized double getTimeStep() {
+        return timeStep;
+    }
+
+    /// Electrical states run every step; mechanical and thermal states at their own periods.
+    /// A period of zero or less switches back to single-rate stepping.
+    public synchronized void setMultiRate(double mechanicalPeriod, double thermalPeriod) {
+        scheduler.clear();
+        multiRate = mechanicalPeriod > 0 && thermalPeriod > 0;
+        inverter.setThermalDecoupled(multiRate);
+        if (multiRate) {
+            scheduler.addTask("Mechanical", mechanicalPeriod, elapsed -> motor.updateMechanical(loadType, elapsed));
+            scheduler.addTask("Thermal", thermalPeriod, elapsed -> {
+                motor.updateThermal(elapsed);
+                inverter.updateThermal(elapsed);
+            });
+        }
+    }
+
+    /// Fixed inverter fidelity: "Averaged" (default), "Cycle-Averaged" or "Switched"
+    public synchronized void setFidelity(String fidelity) {
+        fidelityPolicy = null;
+        inverter.setFidelity(fidelity);
+    }
+
+    /// Switches fidelity automatically on faults, setpoint changes and windows; null restores a fixed level
+    public synchronized void setFidelityPolicy(FidelityPolicy fidelityPolicy) {
+        this.fidelityPolicy = fidelityPolicy;
+        lastFault = faultSimulator.getCurrentFault();
+    }
+
+    /// "Euler" (default), "Heun", "RK4", "RK45" or "Rosenbrock"
+    public synchronized void setIntegrator(String name) {
+        motor.setIntegrator(OdeIntegrator.create(name));
+    }
+
+    /// "Exact" (java.lang.Math, bit-reproducible) or "Fast" (FastMath kernels; see FastMath for bounds)
+    public synchronized void setMathMode(String mathMode) {
+        boolean fast = mathMode.equals("Fast");
+        controller.setFastMath(fast);
+        inverter.setFastMath(fast);
+        motor.setFastMath(fast);
+    }
+
+    /// "Sector" (default) or "Carrier"; see SvpwmKernel
+    public synchronized void setSvpwmMethod(String svpwmMethod) {
+        inverter.setSvpwmMethod(svpwmMethod);
+    }
+
+    public synchronized void setControlMode(String controlMode) {
+        if (fidelityPolicy != null && !controlMode.equals(this.controlMode)) {
+            fidelityPolicy.setpointChanged(clock.getTime());
+        }
+        this.controlMode = controlMode;
+    }
+
+    public synchronized void setPwmType(String pwmType) {
+        this.pwmType = pwmType;
+    }
+
+    public synchronized void setLoadType(String loadType) {
+        this.loadType = loadType;
+    }
+
+    public synchronized void setReferences(double speedRef, double torqueRef, double fluxRef,
+                                           double accelRate, double direction) {
+        if (fidelityPolicy != null && (speedRef != this.speedRef || torqueRef != this.torqueRef
+                || fluxRef != this.fluxRef || direction != this.direction)) {
+            fidelityPolicy.setpointChanged(clock.getTime());
+        }
+        this.speedRef = speedRef;
+        this.torqueRef = torqueRef;
+        this.fluxRef = fluxRef;
+        this.accelRate = accelRate;
+        this.direction = direction;
+    }
+
+    public synchronized void setProtection(boolean autoReset, double maxTemp, String protectionMode) {
+        this.autoReset = autoReset;
+        this.maxTemp = maxTemp;
+        this.protectionMode = protectionMode;
+    }
+
+    /// Triggers the fidelity policy at once; lastFault is updated so the step loop does not count it again
+    public synchronized void injectFault(String faultType) {
+        faultSimulator.injectFault(faultType);
+        if (fidelityPolicy != null && !faultType.equals("None") && !faultType.equals(lastFault)) {
+            fidelityPolicy.faultOccurred(clock.getTime());
+        }
+        lastFault = faultSimulator.getCurrentFault();
+    }
+
+    public synchronized void clearFault() {
+        faultSimulator.clearFault();
+    }
+
+    public synchronized double getSimulationTime() {
+        return clock.getTime();
+    }
+
+    public synchronized long getStepCount() {
+        return stepCount;
+    }
+
+    public synchronized double[] getPhaseVoltages() {
+        return phaseVoltages.clone();
+    }
+
+    public synchronized double[] getPhaseCurrents() {
+        return phaseCurrents.clone();
+    }
+
+    public synchronized double getSpeed() {
+        return motor.getSpeed();
+    }
+
+    public synchronized double getTorque() {
+        return motor.getTorque();
+    }
+
+    public synchronized double getMotorTemperature() {
+        return motor.getTemperature();
+    }
+
+    public synchronized double getInverterTemperature() {
+        return inverter.getTemperature();
+    }
+
+    public synchronized String getCurrentFault() {
+        return faultSimulator.getCurrentFault();
+    }
+
+    /// Component access; callers mutating components must hold the engine lock
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    public InductionMotor getMotor() {
+        return motor;
+    }
+
+    public VfController getController() {
+        return controller;
+    }
+
+    public InverterPowerStage getInverter() {
+        return inverter;
+    }
+
+    public SensorModel getSensors() {
+        return sensors;
+    }
+
+    public FaultSimulator getFaultSimulator() {
+        return faultSimulator;
+    }
+}
@@ -0,0 +1,40 @@
+package inverter_drive.simulation.software;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/// Append-only mapping between the engine's mode/fault strings and dense int codes, so telemetry
+/// and logs carry an int per sample instead of a String. Codes are assigned in first-seen order
+/// and never change; decode() is safe from any thread.
+public class StringDictionary {
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[0];
+
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    private synchronized int add(String value) {
+        Integer code = codes.get(value);
+        if (code != null) return code;
+        String[] updated = Arrays.copyOf(values, values.length + 1);
+        updated[values.length] = value;
+        values = updated; // Published before the code becomes visible to encode()
+        codes.put(value, values.length - 1);
+        return values.length - 1;
+    }
+
+    public String decode(int code) {
+        return values[code];
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    /// Entries in code order
+    public String[] values() {
+        return values.clone();
+    }
+}
@@ -0,0 +1,91 @@
+package inverter_drive.simulation.software;
+
+/// Space vector PWM duty kernels. Inputs are the controller's PWM signals p in [0, 1]; the
+/// reference voltages are v = 2p - 1 against the DC link, as in InverterPowerStage.
+///
+/// "Sector" is the classic form: angle and magnitude of the α-β vector, sector lookup, and dwell
+/// times T1, T2, T0 per sector. "Carrier" is its min/max zero-sequence injection equivalent,
+///   d_x = 0.5 + (v_x - (max(v) + min(v)) / 2) / Vdc,
+/// which gives the same duties for any modulation depth (the two agree algebraically, including
+/// past the linear range) with no trigonometry, no sector switch and no branches.
+public final class SvpwmKernel {
+    private SvpwmKernel() {
+    }
+
+    public static void sectorDuties(double pa, double pb, double pc, double dcLinkVoltage,
+                                    double pwmFrequency, boolean fastMath, double[] duties) {
+        double vRefA = 2.0 * pa - 1.0;
+        double vRefB = 2.0 * pb - 1.0;
+        double vRefC = 2.0 * pc - 1.0;
+        double vAlpha = (2.0 / 3.0) * (vRefA - 0.5 * (vRefB + vRefC));
+        double vBeta = (1.0 / Math.sqrt(3)) * (vRefB - vRefC);
+        double vMag = Math.sqrt(vAlpha * vAlpha + vBeta * vBeta);
+        double theta = fastMath ? FastMath.atan2(vBeta, vAlpha) : Math.atan2(vBeta, vAlpha);
+        int sector = (int) Math.floor(theta / (Math.PI / 3.0)) % 6;
+        if (sector < 0) sector += 6;
+        double sectorAngle = theta - sector * Math.PI / 3.0;
+        double m = vMag * Math.sqrt(3) / dcLinkVoltage;
+        double T = 1.0 / pwmFrequency;
+        double T1 = m * T * (fastMath ? FastMath.sin(Math.PI / 3.0 - sectorAngle) : Math.sin(Math.PI / 3.0 - sectorAngle));
+        double T2 = m * T * (fastMath ? FastMath.sin(sectorAngle) : Math.sin(sectorAngle));
+        double T0 = T - T1 - T2;
+        switch (sector) {
+            case 0:
+                duties[0] = (T1 + T2 + T0 / 2) / T;
+                duties[1] = (T2 + T0 / 2) / T;
+                duties[2] = T0 / (2 * T);
+                break;
+            case 1:
+                duties[0] = (T1 + T0 / 2) / T;
+                duties[1] = (T1 + T2 + T0 / 2) / T;
+                duties[2] = T0 / (2 * T);
+                break;
+            case 2:
+                duties[0] = T0 / (2 * T);
+                duties[1] = (T1 + T2 + T0 / 2) / T;
+                duties[2] = (T2 + T0 / 2) / T;
+                break;
+            case 3:
+                duties[0] = T0 / (2 * T);
+                duties[1] = (T1 + T0 / 2) / T;
+                duties[2] = (T1 + T2 + T0 / 2) / T;
+                break;
+            case 4:
+                duties[0] = (T2 + T0 / 2) / T;
+                duties[1] = T0 / (2 * T);
+                duties[2] = (T1 + T2 + T0 / 2) / T;
+                break;
+            case 5:
+                duties[0] = (T1 + T2 + T0 / 2) / T;
+                duties[1] = T0 / (2 * T);
+                duties[2] = (T1 + T0 / 2) / T;
+                break;
+        }
+    }
+
+    public static void carrierDuties(double pa, double pb, double pc, double dcLinkVoltage, double[] duties) {
+        double vRefA = 2.0 * pa - 1.0;
+        double vRefB = 2.0 * pb - 1.0;
+        double vRefC = 2.0 * pc - 1.0;
+        double offset = 0.5 * (Math.max(vRefA, Math.max(vRefB, vRefC)) + Math.min(vRefA, Math.min(vRefB, vRefC)));
+        double gain = 1.0 / dcLinkVoltage;
+        duties[0] = 0.5 + (vRefA - offset) * gain;
+        duties[1] = 0.5 + (vRefB - offset) * gain;
+        duties[2] = 0.5 + (vRefC - offset) * gain;
+    }
+
+    /// Struct-of-arrays form over [from, to): one straight-line loop the JIT can unroll and vectorize
+    public static void carrierDuties(double[] pa, double[] pb, double[] pc, double[] dcLinkVoltage,
+                                     double[] da, double[] db, double[] dc, int from, int to) {
+        for (int k = from; k < to; k++) {
+            double vRefA = 2.0 * pa[k] - 1.0;
+            double vRefB = 2.0 * pb[k] - 1.0;
+            double vRefC = 2.0 * pc[k] - 1.0;
+            double offset = 0.5 * (Math.max(vRefA, Math.max(vRefB, vRefC)) + Math.min(vRefA, Math.min(vRefB, vRefC)));
+            double gain = 1.0 / dcLinkVoltage[k];
+            da[k] = 0.5 + (vRefA - offset) * gain;
+            db[k] = 0.5 + (vRefB - offset) * gain;
+            dc[k] = 0.5 + (vRefC - offset) * gain;
+        }
+    }
+}
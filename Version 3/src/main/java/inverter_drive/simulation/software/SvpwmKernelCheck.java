@@ -0,0 +1,105 @@
+package inverter_drive.simulation.software;
+
+import java.util.SplittableRandom;
+
+/// Verifies that the carrier SVPWM kernel reproduces the sector kernel's duties over the full
+/// angle and modulation range, then measures throughput of both (scalar and struct-of-arrays).
+/// Run: java inverter_drive.simulation.software.SvpwmKernelCheck [tolerance]
+public class SvpwmKernelCheck {
+    private static volatile double sink; // Defeats dead-code elimination
+
+    public static void main(String[] args) {
+        double tolerance = args.length > 0 ? Double.parseDouble(args[0]) : 1e-9;
+        boolean passed = verify(tolerance);
+        benchmark(1 << 14, 400);
+        if (!passed) System.exit(1);
+    }
+
+    /// Sweeps angle (including every sector boundary) and modulation depth from zero to past the
+    /// linear range, for several DC-link voltages, with and without a common-mode component
+    private static boolean verify(double tolerance) {
+        double[] sector = new double[3];
+        double[] carrier = new double[3];
+        double[] dcLinks = {0.5, 1.0, 2.0, 400.0};
+        double[] commonModes = {0.0, 0.2, -0.3};
+        int angleSteps = 3600;
+        int depthSteps = 200;
+        double maxError = 0;
+        long cases = 0;
+        for (double dcLink : dcLinks) {
+            for (double commonMode : commonModes) {
+                for (int d = 0; d <= depthSteps; d++) {
+                    double amplitude = 1.2 * d / depthSteps; // Beyond the 2/√3 linear limit at dcLink = 1
+                    for (int a = 0; a < angleSteps; a++) {
+                        double theta = 2 * Math.PI * a / angleSteps; // Multiples of 60° land on boundaries
+                        double pa = 0.5 * (1 + commonMode + amplitude * Math.cos(theta));
+                        double pb = 0.5 * (1 + commonMode + amplitude * Math.cos(theta - 2 * Math.PI / 3));
+                        double pc = 0.5 * (1 + commonMode + amplitude * Math.cos(theta + 2 * Math.PI / 3));
+                        SvpwmKernel.sectorDuties(pa, pb, pc, dcLink, 10000, false, sector);
+                        SvpwmKernel.carrierDuties(pa, pb, pc, dcLink, carrier);
+                        for (int i = 0; i < 3; i++) {
+                            maxError = Math.max(maxError, Math.abs(sector[i] - carrier[i]));
+                        }
+                        cases++;
+                    }
+                }
+            }
+        }
+        boolean passed = maxError <= tolerance;
+        System.out.printf("verify: %d cases, max |sector - carrier| = %.3e (tolerance %.1e) %s%n",
+                cases, maxError, tolerance, passed ? "PASS" : "FAIL");
+        return passed;
+    }
+
+    private static void benchmark(int drives, int rounds) {
+        SplittableRandom random = new SplittableRandom(1);
+        double[] pa = new double[drives];
+        double[] pb = new double[drives];
+        double[] pc = new double[drives];
+        double[] vdc = new double[drives];
+        double[] da = new double[drives];
+        double[] db = new double[drives];
+        double[] dc = new double[drives];
+        for (int k = 0; k < drives; k++) {
+            double theta = random.nextDouble() * 2 * Math.PI;
+            double amplitude = random.nextDouble();
+            pa[k] = 0.5 * (1 + amplitude * Math.cos(theta));
+            pb[k] = 0.5 * (1 + amplitude * Math.cos(theta - 2 * Math.PI / 3));
+            pc[k] = 0.5 * (1 + amplitude * Math.cos(theta + 2 * Math.PI / 3));
+            vdc[k] = 400.0;
+        }
+        double[] out = new double[3];
+        double sectorNanos = 0;
+        double carrierNanos = 0;
+        double arrayNanos = 0;
+        double acc = 0;
+        for (int pass = 0; pass < 2; pass++) { // First pass is warm-up
+            long start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (int k = 0; k < drives; k++) {
+                    SvpwmKernel.sectorDuties(pa[k], pb[k], pc[k], vdc[k], 10000, false, out);
+                    acc += out[0];
+                }
+            }
+            sectorNanos = (System.nanoTime() - start) / ((double) rounds * drives);
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (int k = 0; k < drives; k++) {
+                    SvpwmKernel.carrierDuties(pa[k], pb[k], pc[k], vdc[k], out);
+                    acc += out[0];
+                }
+            }
+            carrierNanos = (System.nanoTime() - start) / ((double) rounds * drives);
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                SvpwmKernel.carrierDuties(pa, pb, pc, vdc, da, db, dc, 0, drives);
+                acc += da[r % drives];
+            }
+            arrayNanos = (System.nanoTime() - start) / ((double) rounds * drives);
+        }
+        sink = acc;
+        System.out.printf("sector  scalar: %7.2f ns/drive%n", sectorNanos);
+        System.out.printf("carrier scalar: %7.2f ns/drive (%.1fx)%n", carrierNanos, sectorNanos / carrierNanos);
+        System.out.printf("carrier arrays: %7.2f ns/drive (%.1fx)%n", arrayNanos, sectorNanos / arrayNanos);
+    }
+}
@@ -0,0 +1,6 @@
+package inverter_drive.simulation.software;
+
+/// One point of a parameter sweep: motor, controller and PWM settings for a single run
+public record SweepPoint(double resistance, double inductance, double loadInertia, double couplingStiffness,
+                         double kp, double ki, double pwmFrequency) {
+}
@@ -0,0 +1,88 @@
+package inverter_drive.simulation.software;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/// Per-run summary metrics of a sweep stored column-wise; each run writes only its own row
+public class SweepResultTable {
+    private final SweepPoint[] points;
+    private final double settlingBand;
+    private final double[] settlingTime;
+    private final double[] overshoot;
+    private final double[] peakMotorTemperature;
+    private final double[] finalSpeed;
+    private final boolean[] completed;
+
+    public SweepResultTable(SweepPoint[] points) {
+        this(points, 0.02);
+    }
+
+    /// settlingBand is the half-width used for settling times, as a fraction of the speed reference
+    public SweepResultTable(SweepPoint[] points, double settlingBand) {
+        this.points = points;
+        this.settlingBand = settlingBand;
+        settlingTime = new double[points.length];
+        overshoot = new double[points.length];
+        peakMotorTemperature = new double[points.length];
+        finalSpeed = new double[points.length];
+        completed = new boolean[points.length];
+    }
+
+    void record(int run, double settlingTime, double overshoot, double peakMotorTemperature, double finalSpeed) {
+        this.settlingTime[run] = settlingTime;
+        this.overshoot[run] = overshoot;
+        this.peakMotorTemperature[run] = peakMotorTemperature;
+        this.finalSpeed[run] = finalSpeed;
+        this.completed[run] = true;
+    }
+
+    public void writeCsv(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            writer.write("Run,R,L,LoadJ,Stiffness,Kp,Ki,PwmFreq,SettlingTime,Overshoot,PeakMotorTemp,FinalSpeed\n");
+            for (int i = 0; i < points.length; i++) {
+                if (!completed[i]) continue;
+                SweepPoint p = points[i];
+                writer.write(i + "," + p.resistance() + "," + p.inductance() + "," + p.loadInertia() + ","
+                        + p.couplingStiffness() + "," + p.kp() + "," + p.ki() + "," + p.pwmFrequency() + ","
+                        + settlingTime[i] + "," + overshoot[i] + "," + peakMotorTemperature[i] + "," + finalSpeed[i] + "\n");
+            }
+        }
+    }
+
+    public int size() {
+        return points.length;
+    }
+
+    public SweepPoint getPoint(int run) {
+        return points[run];
+    }
+
+    public boolean isCompleted(int run) {
+        return completed[run];
+    }
+
+    public double getSettlingBand() {
+        return settlingBand;
+    }
+
+    /// Seconds until speed last entered the band of ±getSettlingBand() around the reference; NaN if it
+    /// never settled
+    public double getSettlingTime(int run) {
+        return settlingTime[run];
+    }
+
+    /// Peak speed above the reference in percent of the reference
+    public double getOvershoot(int run) {
+        return overshoot[run];
+    }
+
+    public double getPeakMotorTemperature(int run) {
+        return peakMotorTemperature[run];
+    }
+
+    public double getFinalSpeed(int run) {
+        return finalSpeed[run];
+    }
+}
@@ -0,0 +1,301 @@
+package inverter_drive.simulation.software;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/// Single-producer, multi-consumer ring buffer for per-step signals. The engine writes each step
+/// into primitive columns (one double[] per signal, one int[] of dictionary codes per string
+/// signal) and moves on; each subscriber has its own cursor and overflow policy:
+///   "Block"       - the producer waits for this subscriber when the ring is full (lossless)
+///   "Drop Oldest" - an overrun subscriber skips ahead to retained data and counts the loss
+///   "Sample"      - delivers every n-th sample and jumps to the newest one when overrun
+/// Only "Block" subscribers ever cost the producer anything, and only when they fall a full ring
+/// behind, so the step rate does not depend on how many subscribers are attached.
+///
+/// Slots are guarded seqlock-style: the producer announces a sequence in `claimed` before writing
+/// it and publishes it in `published` afterwards; a non-blocking reader that finds its slot
+/// reclaimed after copying discards the copy.
+public class TelemetryBus {
+    /// Double channels
+    public static final int TIME = 0;
+    public static final int VA = 1;
+    public static final int VB = 2;
+    public static final int VC = 3;
+    public static final int IA = 4;
+    public static final int IB = 5;
+    public static final int IC = 6;
+    public static final int SPEED = 7;
+    public static final int TORQUE = 8;
+    public static final int MOTOR_TEMP = 9;
+    public static final int INVERTER_TEMP = 10;
+    public static final int CHANNELS = 11;
+    /// Code channels, decoded through getDictionary()
+    public static final int CONTROL_MODE = 0;
+    public static final int FAULT = 1;
+    public static final int CODE_CHANNELS = 2;
+    public static final String[] CHANNEL_NAMES = {"Time", "Va", "Vb", "Vc", "Ia", "Ib", "Ic", "Speed", "Torque",
+            "MotorTemp", "InverterTemp"};
+    public static final String[] CODE_CHANNEL_NAMES = {"ControlMode", "Fault"};
+
+    public interface SampleHandler {
+        /// values and codes are the subscriber's buffers, indexed by channel, reused every sample
+        void onSample(long sequence, double[] values, int[] codes);
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final double[][] columns;
+    private final int[][] codeColumns;
+    private final StringDictionary dictionary = new StringDictionary();
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+    private volatile Subscription[] subscriptions = new Subscription[0];
+    /// Producer-local state
+    private long nextSequence = 0;
+    private long gate; // Sequences below this are writable without checking subscribers
+    private long blockedNanos = 0;
+    private final String[] lastString = new String[CODE_CHANNELS];
+    private final int[] lastCode = new int[CODE_CHANNELS];
+
+    /// capacity is rounded up to a power of two
+    public TelemetryBus(int capacity) {
+        if (capacity < 2) throw new IllegalArgumentException("Capacity must be at least 2");
+        this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.columns = new double[CHANNELS][this.capacity];
+        this.codeColumns = new int[CODE_CHANNELS][this.capacity];
+        this.gate = this.capacity;
+    }
+
+    /// Producer side; called by one thread only. The arrays are read, not kept.
+    public void publish(double time, double[] voltages, double[] currents, double speed, double torque,
+                        double motorTemperature, double inverterTemperature, String controlMode, String fault) {
+        long sequence = nextSequence;
+        if (sequence >= gate) awaitCapacity(sequence);
+        claimed.lazySet(sequence + 1);
+        VarHandle.storeStoreFence(); // Claim is visible before any slot data is overwritten
+        int slot = (int) sequence & mask;
+        columns[TIME][slot] = time;
+        columns[VA][slot] = voltages[0];
+        columns[VB][slot] = voltages[1];
+        columns[VC][slot] = voltages[2];
+        columns[IA][slot] = currents[0];
+        columns[IB][slot] = currents[1];
+        columns[IC][slot] = currents[2];
+        columns[SPEED][slot] = speed;
+        columns[TORQUE][slot] = torque;
+        columns[MOTOR_TEMP][slot] = motorTemperature;
+        columns[INVERTER_TEMP][slot] = inverterTemperature;
+        codeColumns[CONTROL_MODE][slot] = encode(CONTROL_MODE, controlMode);
+        codeColumns[FAULT][slot] = encode(FAULT, fault);
+        nextSequence = sequence + 1;
+        published.lazySet(sequence + 1);
+    }
+
+    /// The engine passes the same String instances step after step, so an identity check skips the map
+    private int encode(int channel, String value) {
+        if (value != lastString[channel]) {
+            lastCode[channel] = dictionary.encode(value);
+            lastString[channel] = value;
+        }
+        return lastCode[channel];
+    }
+
+    /// Reached at most once per ring length while no blocking subscriber is behind
+    private void awaitCapacity(long sequence) {
+        long start = 0;
+        while (true) {
+            long oldest = sequence;
+            Subscription[] current = subscriptions;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].blocking) oldest = Math.min(oldest, current[i].cursor.get());
+            }
+            gate = oldest + capacity;
+            if (sequence < gate) break;
+            if (start == 0) start = System.nanoTime();
+            LockSupport.parkNanos(20_000);
+        }
+        if (start != 0) blockedNanos += System.nanoTime() - start;
+    }
+
+    public Subscription subscribe(String name, String overflow) {
+        return subscribe(name, overflow, 1);
+    }
+
+    /// sampleEvery only applies to "Sample"
+    public synchronized Subscription subscribe(String name, String overflow, int sampleEvery) {
+        if (!overflow.equals("Block") && !overflow.equals("Drop Oldest") && !overflow.equals("Sample")) {
+            throw new IllegalArgumentException("Unknown overflow policy: " + overflow);
+        }
+        if (sampleEvery < 1) throw new IllegalArgumentException("sampleEvery must be positive");
+        Subscription subscription = new Subscription(name, overflow, sampleEvery, published.get());
+        Subscription[] updated = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+        updated[subscriptions.length] = subscription;
+        subscriptions = updated;
+        return subscription;
+    }
+
+    private synchronized void unsubscribe(Subscription subscription) {
+        for (int i = 0; i < subscriptions.length; i++) {
+            if (subscriptions[i] == subscription) {
+                Subscription[] updated = new Subscription[subscriptions.length - 1];
+                System.arraycopy(subscriptions, 0, updated, 0, i);
+                System.arraycopy(subscriptions, i + 1, updated, i, subscriptions.length - i - 1);
+                subscriptions = updated;
+                return;
+            }
+        }
+    }
+
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /// Samples published so far
+    public long getPublished() {
+        return published.get();
+    }
+
+    /// Producer time spent waiting for "Block" subscribers
+    public long getBlockedNanos() {
+        return blockedNanos;
+    }
+
+    public Subscription[] getSubscriptions() {
+        return subscriptions.clone();
+    }
+
+    /// One consumer's view of the bus. Poll it from a single thread, or start() a daemon thread.
+    public class Subscription {
+        private final String name;
+        private final String overflow;
+        private final boolean blocking;
+        private final boolean sampling;
+        private final int sampleEvery;
+        private final AtomicLong cursor; // Next sequence to read; gates the producer when blocking
+        private final double[] values = new double[CHANNELS];
+        private final int[] codes = new int[CODE_CHANNELS];
+        private volatile long delivered = 0;
+        private volatile long dropped = 0;
+        private volatile boolean active = true;
+        private volatile Throwable failure;
+        private Thread thread;
+
+        private Subscription(String name, String overflow, int sampleEvery, long start) {
+            this.name = name;
+            this.overflow = overflow;
+            this.blocking = overflow.equals("Block");
+            this.sampling = overflow.equals("Sample");
+            this.sampleEvery = sampling ? sampleEvery : 1;
+            this.cursor = new AtomicLong(start);
+        }
+
+        /// Hands up to maxSamples pending samples to the handler; returns how many were delivered
+        public int poll(SampleHandler handler, int maxSamples) {
+            long next = cursor.get();
+            long available = published.get();
+            int count = 0;
+            while (count < maxSamples) {
+                if (sampling && next % sampleEvery != 0) next += sampleEvery - next % sampleEvery;
+                if (next >= available) break;
+                if (!blocking && available - next > capacity) {
+                    /// Overrun: keep an eighth of the ring as margin against the advancing producer
+                    long resume = available - capacity + (capacity >> 3);
+                    if (sampling) resume = (available - 1) / sampleEvery * sampleEvery;
+                    dropped += resume - next;
+                    next = resume;
+                    continue;
+                }
+                int slot = (int) next & mask;
+                for (int channel = 0; channel < CHANNELS; channel++) values[channel] = columns[channel][slot];
+                for (int channel = 0; channel < CODE_CHANNELS; channel++) codes[channel] = codeColumns[channel][slot];
+                if (!blocking) {
+                    VarHandle.loadLoadFence(); // Slot reads complete before the claim check
+                    if (claimed.get() - next > capacity) { // Rewritten while copying
+                        available = published.get();
+                        continue;
+                    }
+                }
+                handler.onSample(next, values, codes);
+                next++;
+                count++;
+                if (blocking && (count & 1023) == 0) cursor.lazySet(next); // Release the producer early
+            }
+            cursor.lazySet(next);
+            delivered += count;
+            return count;
+        }
+
+        /// Polls on a daemon thread until close(), parking briefly whenever the bus is idle. A handler
+        /// that throws detaches the subscription, so a failed "Block" consumer never stalls the
+        /// producer; the exception is kept for getFailure()
+        public synchronized void start(SampleHandler handler) {
+            if (thread != null) throw new IllegalStateException("Subscription " + name + " already started");
+            thread = new Thread(() -> {
+                try {
+                    while (active) {
+                        if (poll(handler, 4096) == 0) LockSupport.parkNanos(200_000);
+                    }
+                    while (poll(handler, 4096) > 0) {
+                        /// Drain what was published before close()
+                    }
+                } catch (Throwable e) {
+                    failure = e;
+                    active = false;
+                    unsubscribe(this);
+                }
+            }, "telemetry-" + name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /// Detaches from the bus; a started thread delivers the remaining samples first
+        public void close() {
+            active = false;
+            Thread current;
+            synchronized (this) {
+                current = thread;
+            }
+            if (current != null && current != Thread.currentThread()) {
+                try {
+                    current.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            unsubscribe(this);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getOverflow() {
+            return overflow;
+        }
+
+        /// Samples published but not yet read
+        public long getLag() {
+            return Math.max(0, published.get() - cursor.get());
+        }
+
+        public long getDelivered() {
+            return delivered;
+        }
+
+        public long getDropped() {
+            return dropped;
+        }
+
+        /// What the started thread's handler threw, or null while it has not failed
+        public Throwable getFailure() {
+            return failure;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package inverter_drive.simulation.software;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/// Lossless column codecs for telemetry blocks, after the Gorilla time-series scheme:
+///   deltaOfDelta - timestamps. Works on the IEEE bit patterns, which increase monotonically with
+///                  positive time, so a fixed-step clock gives delta-of-deltas of a few ulps and
+///                  encodes in 1 to 14 bits per sample
+///   xor          - slowly varying doubles. Each value is XORed with its predecessor; an unchanged
+///                  value costs 1 bit, otherwise only the meaningful bits between the leading and
+///                  trailing zeros are stored, reusing the previous window when it fits
+///   runLength    - dictionary codes as (code, run length) varint pairs
+///   raw          - little-endian values, the fallback for noisy channels where XOR would expand
+/// Every encoding starts from scratch, so a block decodes without any other block.
+public final class TelemetryCodec {
+    private TelemetryCodec() {
+    }
+
+    public static byte[] deltaOfDelta(double[] values, int count) {
+        BitWriter out = new BitWriter(count + 16);
+        if (count == 0) return out.toByteArray();
+        long previous = Double.doubleToRawLongBits(values[0]);
+        out.write(previous, 64);
+        long previousDelta = 0;
+        for (int i = 1; i < count; i++) {
+            long bits = Double.doubleToRawLongBits(values[i]);
+            long delta = bits - previous;
+            long zigzag = zigzag(delta - previousDelta);
+            if (zigzag == 0) {
+                out.write(0, 1);
+            } else if (zigzag < (1L << 7)) {
+                out.write(0b10, 2);
+                out.write(zigzag, 7);
+            } else if (zigzag < (1L << 9)) {
+                out.write(0b110, 3);
+                out.write(zigzag, 9);
+            } else if (zigzag < (1L << 12)) {
+                out.write(0b1110, 4);
+                out.write(zigzag, 12);
+            } else {
+                out.write(0b1111, 4);
+                out.write(zigzag, 64);
+            }
+            previous = bits;
+            previousDelta = delta;
+        }
+        return out.toByteArray();
+    }
+
+    public static void decodeDeltaOfDelta(byte[] data, int count, double[] values) {
+        if (count == 0) return;
+        BitReader in = new BitReader(data);
+        long previous = in.read(64);
+        values[0] = Double.longBitsToDouble(previous);
+        long previousDelta = 0;
+        for (int i = 1; i < count; i++) {
+            long zigzag;
+            if (in.read(1) == 0) {
+                zigzag = 0;
+            } else if (in.read(1) == 0) {
+                zigzag = in.read(7);
+            } else if (in.read(1) == 0) {
+                zigzag = in.read(9);
+            } else if (in.read(1) == 0) {
+                zigzag = in.read(12);
+            } else {
+                zigzag = in.read(64);
+            }
+            long delta = previousDelta + unzigzag(zigzag);
+            previous += delta;
+            previousDelta = delta;
+            values[i] = Double.longBitsToDouble(previous);
+        }
+    }
+
+    public static byte[] xor(double[] values, int count) {
+        BitWriter out = new BitWriter(count * 2 + 16);
+        if (count == 0) return out.toByteArray();
+        long previous = Double.doubleToRawLongBits(values[0]);
+        out.write(previous, 64);
+        int windowLeading = -1; // No window yet
+        int windowTrailing = 0;
+        for (int i = 1; i < count; i++) {
+            long bits = Double.doubleToRawLongBits(values[i]);
+            long xor = bits ^ previous;
+            if (xor == 0) {
+                out.write(0, 1);
+            } else {
+                int leading = Math.min(Long.numberOfLeadingZeros(xor), 31); // 5-bit field
+                int trailing = Long.numberOfTrailingZeros(xor);
+                if (windowLeading >= 0 && leading >= windowLeading && trailing >= windowTrailing) {
+                    out.write(0b10, 2);
+                    out.write(xor >>> windowTrailing, 64 - windowLeading - windowTrailing);
+                } else {
+                    int length = 64 - leading - trailing;
+                    out.write(0b11, 2);
+                    out.write(leading, 5);
+                    out.write(length - 1, 6);
+                    out.write(xor >>> trailing, length);
+                    windowLeading = leading;
+                    windowTrailing = trailing;
+                }
+            }
+            previous = bits;
+        }
+        return out.toByteArray();
+    }
+
+    public static void decodeXor(byte[] data, int count, double[] values) {
+        if (count == 0) return;
+        BitReader in = new BitReader(data);
+        long previous = in.read(64);
+        values[0] = Double.longBitsToDouble(previous);
+        int windowLeading = 0;
+        int windowTrailing = 0;
+        for (int i = 1; i < count; i++) {
+            if (in.read(1) != 0) {
+                if (in.read(1) != 0) {
+                    windowLeading = (int) in.read(5);
+                    int length = (int) in.read(6) + 1;
+                    windowTrailing = 64 - windowLeading - length;
+                }
+                previous ^= in.read(64 - windowLeading - windowTrailing) << windowTrailing;
+            }
+            values[i] = Double.longBitsToDouble(previous);
+        }
+    }
+
+    public static byte[] runLength(int[] codes, int count) {
+        BitWriter out = new BitWriter(16);
+        int i = 0;
+        while (i < count) {
+            int code = codes[i];
+            int run = 1;
+            while (i + run < count && codes[i + run] == code) run++;
+            out.writeVarint(code);
+            out.writeVarint(run);
+            i += run;
+        }
+        return out.toByteArray();
+    }
+
+    public static void decodeRunLength(byte[] data, int count, int[] codes) {
+        BitReader in = new BitReader(data);
+        int i = 0;
+        while (i < count) {
+            int code = (int) in.readVarint();
+            int run = (int) in.readVarint();
+            Arrays.fill(codes, i, i + run, code);
+            i += run;
+        }
+    }
+
+    public static byte[] raw(double[] values, int count) {
+        ByteBuffer out = ByteBuffer.allocate(8 * count).order(ByteOrder.LITTLE_ENDIAN);
+        out.asDoubleBuffer().put(values, 0, count);
+        return out.array();
+    }
+
+    public static void decodeRaw(byte[] data, int count, double[] values) {
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(values, 0, count);
+    }
+
+    public static byte[] raw(int[] codes, int count) {
+        ByteBuffer out = ByteBuffer.allocate(4 * count).order(ByteOrder.LITTLE_ENDIAN);
+        out.asIntBuffer().put(codes, 0, count);
+        return out.array();
+    }
+
+    public static void decodeRaw(byte[] data, int count, int[] codes) {
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(codes, 0, count);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /// MSB-first bit packing into a growing byte array
+    static final class BitWriter {
+        private byte[] bytes;
+        private int size = 0; // Whole bytes written
+        private long pending = 0; // Bits not yet flushed, right-aligned
+        private int pendingBits = 0;
+
+        BitWriter(int initialBytes) {
+            bytes = new byte[Math.max(16, initialBytes)];
+        }
+
+        void write(long value, int bits) {
+            if (bits == 0) return;
+            if (bits > 32) {
+                write(value >>> 32, bits - 32);
+                write(value & 0xFFFFFFFFL, 32);
+                return;
+            }
+            pending = (pending << bits) | (value & ((1L << bits) - 1));
+            pendingBits += bits;
+            while (pendingBits >= 8) {
+                if (size == bytes.length) bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                pendingBits -= 8;
+                bytes[size++] = (byte) (pending >>> pendingBits);
+            }
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((value & 0x7F) | 0x80, 8);
+                value >>>= 7;
+            }
+            write(value, 8);
+        }
+
+        byte[] toByteArray() {
+            if (pendingBits > 0) write(0, 8 - pendingBits);
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+
+    static final class BitReader {
+        private static final VarHandle BIG_ENDIAN_LONG =
+                MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+        private final byte[] bytes;
+        private long position = 0; // In bits
+
+        BitReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        /// Reads 0..64 bits through a big-endian 64-bit window at the current byte
+        long read(int bits) {
+            if (bits == 0) return 0;
+            if (bits > 56) {
+                long high = read(bits - 32);
+                return (high << 32) | read(32);
+            }
+            int index = (int) (position >>> 3);
+            int offset = (int) (position & 7);
+            long window;
+            if (index + 8 <= bytes.length) {
+                window = (long) BIG_ENDIAN_LONG.get(bytes, index);
+            } else {
+                window = 0;
+                for (int i = 0; i < 8; i++) {
+                    window = (window << 8) | (index + i < bytes.length ? bytes[index + i] & 0xFF : 0);
+                }
+            }
+            position += bits;
+            return (window << offset) >>> (64 - bits);
+        }
+
+        long readVarint() {
+            long value = 0;
+            int shift = 0;
+            long b;
+            do {
+                b = read(8);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
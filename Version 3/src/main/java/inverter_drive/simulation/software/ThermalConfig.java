@@ -0,0 +1,38 @@
+package inverter_drive.simulation.software;
+
+/// Lumped thermal model of one body: dT/dt = (P R - h A (T - T_amb) - ε σ A (T⁴ - T_amb⁴)) / C,
+/// with h = convectionBase + convectionFanCoeff * fan + convectionCoolantCoeff * coolant
+public record ThermalConfig(double thermalResistance, // °C/W
+                            double thermalCapacitance, // J/°C
+                            double surfaceArea, // m²
+                            double emissivity,
+                            double convectionBase, // W/m²·K
+                            double convectionFanCoeff, // W/m²·K per unit fan speed
+                            double convectionCoolantCoeff) { // W/m²·K per L/min coolant flow
+    public static final ThermalConfig MOTOR = new ThermalConfig(Config.MOTOR_THERMAL_RESISTANCE,
+            Config.MOTOR_THERMAL_CAPACITANCE, Config.MOTOR_SURFACE_AREA, Config.MOTOR_EMISSIVITY,
+            Config.MOTOR_CONVECTION_BASE, Config.MOTOR_CONVECTION_FAN_COEFF, Config.MOTOR_CONVECTION_COOLANT_COEFF);
+    public static final ThermalConfig INVERTER = new ThermalConfig(Config.INVERTER_THERMAL_RESISTANCE,
+            Config.INVERTER_THERMAL_CAPACITANCE, Config.INVERTER_SURFACE_AREA, Config.INVERTER_EMISSIVITY,
+            Config.INVERTER_CONVECTION_BASE, Config.INVERTER_CONVECTION_FAN_COEFF, Config.INVERTER_CONVECTION_COOLANT_COEFF);
+
+    public ThermalConfig {
+        if (!(thermalCapacitance > 0)) throw new IllegalArgumentException("Thermal capacitance must be positive");
+        if (!(thermalResistance >= 0)) throw new IllegalArgumentException("Thermal resistance must not be negative");
+    }
+
+    public ThermalConfig withResistance(double thermalResistance) {
+        return new ThermalConfig(thermalResistance, thermalCapacitance, surfaceArea, emissivity,
+                convectionBase, convectionFanCoeff, convectionCoolantCoeff);
+    }
+
+    public ThermalConfig withCapacitance(double thermalCapacitance) {
+        return new ThermalConfig(thermalResistance, thermalCapacitance, surfaceArea, emissivity,
+                convectionBase, convectionFanCoeff, convectionCoolantCoeff);
+    }
+
+    /// Convection coefficient h for the given cooling inputs
+    public double convection(double fanSpeed, double coolantFlow) {
+        return convectionBase + convectionFanCoeff * fanSpeed + convectionCoolantCoeff * coolantFlow;
+    }
+}
@@ -0,0 +1,31 @@
+package inverter_drive.simulation.software;
+
+/// Exponential discretization of the lumped thermal model dT/dt = G - k (T - T_amb) - r (T_K^4 - T_amb_K^4).
+/// Radiation is linearized around the current temperature, and the resulting linear system is solved
+/// exactly over the step with the heat input held, so steps of seconds stay stable where explicit
+/// Euler would not.
+final class ThermalStep {
+    private ThermalStep() {
+    }
+
+    /// heatGeneration: G; convectionRate: k = h A / C; radiationCoefficient: r = ε σ A / C
+    static double advance(double temperature, double ambient, double heatGeneration,
+                          double convectionRate, double radiationCoefficient, double timeStep) {
+        double tK = temperature + 273.15;
+        double ambientK = ambient + 273.15;
+        double tK2 = tK * tK;
+        double ambientK2 = ambientK * ambientK;
+        double radiation = radiationCoefficient * (tK2 * tK2 - ambientK2 * ambientK2);
+        double radiationSlope = 4.0 * radiationCoefficient * tK2 * tK;
+        double rate = convectionRate + radiationSlope;
+        double next;
+        if (rate > 0) {
+            double equilibrium = (heatGeneration - radiation + radiationSlope * temperature
+                    + convectionRate * ambient) / rate;
+            next = equilibrium + (temperature - equilibrium) * Math.exp(-rate * timeStep);
+        } else {
+            next = temperature + (heatGeneration - radiation) * timeStep;
+        }
+        return next < ambient ? ambient : next;
+    }
+}
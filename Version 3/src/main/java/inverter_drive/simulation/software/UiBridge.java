@@ -0,0 +1,103 @@
+package inverter_drive.simulation.software;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.text.Text;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/// Frame-paced link from the engine (or a ReplaySource) to the display. Once per JavaFX pulse it pulls
+/// the latest snapshot and renders only that: snapshots published between two frames are coalesced
+/// (never queued), and a slow frame skips display updates instead of holding back the simulation,
+/// which only ever replaces a volatile reference.
+///
+/// Stats line: "queue" is the number of snapshots coalesced into the last frame, "dropped" counts
+/// frames that arrived later than 1.5 nominal frame periods, and "lag" is the age of the rendered
+/// snapshot (publication on the engine thread to render on the FX thread).
+public class UiBridge extends AnimationTimer {
+    private static final long NOMINAL_FRAME_NANOS = 1_000_000_000L / 60;
+
+    private final Supplier<EngineSnapshot> source;
+    private final Consumer<EngineSnapshot> renderer;
+    private final Text statsDisplay;
+    private long lastFrameNanos = 0;
+    private long lastSequence = 0;
+    private long lastStepCount = 0;
+    /// Counters since start()
+    private long renderedFrames = 0;
+    private long droppedFrames = 0;
+    private long coalescedSnapshots = 0;
+    private long coalescedSteps = 0;
+    private int queueDepth = 0;
+    private double lagMillis = 0.0;
+
+    public UiBridge(SimulationEngine engine, Consumer<EngineSnapshot> renderer, Text statsDisplay) {
+        this(engine::getSnapshot, renderer, statsDisplay);
+    }
+
+    /// source must be cheap and non-blocking, e.g. a volatile read
+    public UiBridge(Supplier<EngineSnapshot> source, Consumer<EngineSnapshot> renderer, Text statsDisplay) {
+        this.source = source;
+        this.renderer = renderer;
+        this.statsDisplay = statsDisplay;
+    }
+
+    @Override
+    public void start() {
+        lastFrameNanos = 0;
+        lastSequence = 0;
+        lastStepCount = source.get().stepCount();
+        renderedFrames = 0;
+        droppedFrames = 0;
+        coalescedSnapshots = 0;
+        coalescedSteps = 0;
+        queueDepth = 0;
+        lagMillis = 0.0;
+        super.start();
+    }
+
+    @Override
+    public void handle(long now) {
+        if (lastFrameNanos != 0 && now - lastFrameNanos > NOMINAL_FRAME_NANOS * 3 / 2) {
+            droppedFrames += (now - lastFrameNanos) / NOMINAL_FRAME_NANOS - 1;
+        }
+        lastFrameNanos = now;
+        EngineSnapshot snapshot = source.get();
+        if (snapshot.sequence() == lastSequence) return; // Nothing new since the last frame
+        queueDepth = lastSequence == 0 ? 0 : (int) (snapshot.sequence() - lastSequence - 1);
+        coalescedSnapshots += queueDepth;
+        coalescedSteps += Math.max(0, snapshot.stepCount() - lastStepCount - 1);
+        lastSequence = snapshot.sequence();
+        lastStepCount = snapshot.stepCount();
+        /// Pulse time and nanoTime share a clock
+        lagMillis = Math.max(0, System.nanoTime() - snapshot.publishedNanos()) / 1e6;
+        renderer.accept(snapshot);
+        renderedFrames++;
+        statsDisplay.setText(String.format("UI: queue %d, dropped %d, lag %.1f ms", queueDepth, droppedFrames, lagMillis));
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    public double getLagMillis() {
+        return lagMillis;
+    }
+
+    public long getRenderedFrames() {
+        return renderedFrames;
+    }
+
+    /// Snapshots published but never rendered
+    public long getCoalescedSnapshots() {
+        return coalescedSnapshots;
+    }
+
+    /// Simulation steps with no rendered snapshot of their own
+    public long getCoalescedSteps() {
+        return coalescedSteps;
+    }
+}
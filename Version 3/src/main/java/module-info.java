@@ -1,6 +1,7 @@
 module inverter_drive.simulation.software.inverterdrivesimulationsoftware2 {
     requires javafx.controls;
     requires javafx.fxml;
+    requires jdk.management;
 
 
     opens inverter_drive.simulation.software to javafx.fxml;